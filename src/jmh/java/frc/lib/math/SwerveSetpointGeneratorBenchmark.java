@@ -0,0 +1,62 @@
+package frc.lib.math;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import frc.robot.Constants;
+
+/**
+ * Benchmarks {@link SwerveSetpointGenerator#generate} against the plain discretize and desaturate
+ * it replaces. The requested speeds alternate between driving forward and strafing while turning,
+ * so the acceleration and steering limits are hit on every call.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SwerveSetpointGeneratorBenchmark {
+
+    private final SwerveSetpointGenerator generator = new SwerveSetpointGenerator(
+        Constants.Swerve.maxSpeed, Constants.Swerve.maxModuleAcceleration,
+        Constants.Swerve.maxSteerVelocity, Constants.Swerve.moduleTranslations);
+    private final InPlaceSwerveKinematics kinematics =
+        new InPlaceSwerveKinematics(Constants.Swerve.moduleTranslations);
+    private final double[] speeds = new double[4];
+    private final double[] angles = new double[4];
+    private boolean strafe;
+
+    @Benchmark
+    public double[] generate() {
+        strafe = !strafe;
+        if (strafe) {
+            generator.generate(0.0, Constants.Swerve.maxSpeed, Constants.Swerve.maxAngularVelocity,
+                0.02, speeds, angles);
+        } else {
+            generator.generate(Constants.Swerve.maxSpeed, 0.0, 0.0, 0.02, speeds, angles);
+        }
+        return speeds;
+    }
+
+    @Benchmark
+    public double[] unlimited() {
+        strafe = !strafe;
+        if (strafe) {
+            kinematics.toDiscreteModuleStates(0.0, Constants.Swerve.maxSpeed,
+                Constants.Swerve.maxAngularVelocity, 0.02, speeds, angles);
+        } else {
+            kinematics.toDiscreteModuleStates(Constants.Swerve.maxSpeed, 0.0, 0.0, 0.02, speeds,
+                angles);
+        }
+        InPlaceSwerveKinematics.desaturate(speeds, Constants.Swerve.maxSpeed);
+        return speeds;
+    }
+}
@@ -0,0 +1,87 @@
+package frc.lib.profiling;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the per-call overhead of {@link LoggingProfiler}, which is paid on every profiled
+ * section of every robot loop.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoggingProfilerBenchmark {
+    private static final int OUTER = Profiler.intern("benchmark.outer");
+    private static final int INNER = Profiler.intern("benchmark.inner");
+    private static final int MARKED = Profiler.intern("benchmark.marked");
+
+    /** Whether ticks are also kept by a {@link FlightRecorder}. */
+    @Param({"false", "true"})
+    public boolean flightRecorder;
+
+    private LoggingProfiler profiler;
+
+    /**
+     * Create the profiler, timed like the robot's but without needing the HAL.
+     */
+    @Setup
+    public void setup() {
+        profiler = new LoggingProfiler(System::nanoTime, 1_000_000.0,
+            flightRecorder ? new FlightRecorder(100, 20_000_000L) : null);
+    }
+
+    /**
+     * Start a tick for {@link #pushPop()}.
+     */
+    @Setup(Level.Iteration)
+    public void startTick() {
+        profiler.startTick();
+    }
+
+    /**
+     * End the tick started for {@link #pushPop()}.
+     */
+    @TearDown(Level.Iteration)
+    public void endTick() {
+        profiler.endTick();
+        profiler.reset();
+    }
+
+    /**
+     * A single push and pop inside an already running tick.
+     */
+    @Benchmark
+    public void pushPop() {
+        profiler.push(OUTER);
+        profiler.pop();
+    }
+
+    /**
+     * A whole small tick: nested pushes and a mark, as robotPeriodic() does.
+     */
+    @Benchmark
+    public void tick() {
+        profiler.endTick();
+        profiler.startTick();
+        profiler.push(OUTER);
+        profiler.mark(MARKED);
+        profiler.push(INNER);
+        profiler.pop();
+        profiler.pop();
+    }
+}
@@ -0,0 +1,50 @@
+package frc.lib.sim;
+
+import java.util.concurrent.TimeUnit;
+import org.littletonrobotics.junction.LoggedRobot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.wpilibj.DriverStation.Alliance;
+import frc.lib.util.BenchmarkEnvironment;
+
+/**
+ * Benchmarks one loop of {@link SimulatedArena#update(double)} with a single robot holding a note
+ * and every note still on the field.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SimulatedArenaBenchmark {
+
+    private SimulatedArena arena;
+
+    /**
+     * Create the arena and its robot.
+     */
+    @Setup
+    public void setup() {
+        BenchmarkEnvironment.init(Alliance.Blue);
+        arena = new SimulatedArena();
+        SimulatedPumbaa robot = arena.newPumbaa();
+        robot.setPose(new Pose2d(3.0, 5.5, Rotation2d.fromDegrees(180.0)));
+        robot.setElevatorWrist(24.0, Rotation2d.fromDegrees(40.0));
+    }
+
+    @Benchmark
+    public void update() {
+        arena.update(LoggedRobot.defaultPeriodSecs);
+    }
+}
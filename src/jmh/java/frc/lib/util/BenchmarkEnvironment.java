@@ -0,0 +1,44 @@
+package frc.lib.util;
+
+import edu.wpi.first.hal.AllianceStationID;
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.DriverStation.Alliance;
+import edu.wpi.first.wpilibj.simulation.DriverStationSim;
+
+/**
+ * Shared setup for benchmarks that touch WPILib. Brings up the desktop HAL, like a simulated robot
+ * does, so driver station, NetworkTables and Shuffleboard calls behave as they do in simulation.
+ *
+ * <p>
+ * AdvantageKit's {@code Logger} is never started, so {@code recordOutput} returns early.
+ * Benchmarks still pay for building the values they log, but not for encoding them.
+ */
+public final class BenchmarkEnvironment {
+    private static boolean initialized = false;
+
+    private BenchmarkEnvironment() {}
+
+    /**
+     * Initialize the HAL, if it hasn't been already.
+     */
+    public static synchronized void init() {
+        if (!initialized) {
+            if (!HAL.initialize(500, 0)) {
+                throw new IllegalStateException("Failed to initialize the HAL.");
+            }
+            initialized = true;
+        }
+    }
+
+    /**
+     * Initialize the HAL and report {@code alliance} from the simulated driver station.
+     */
+    public static void init(Alliance alliance) {
+        init();
+        DriverStationSim.setAllianceStationId(
+            alliance == Alliance.Red ? AllianceStationID.Red1 : AllianceStationID.Blue1);
+        DriverStationSim.notifyNewData();
+        DriverStation.refreshData();
+    }
+}
@@ -0,0 +1,61 @@
+package frc.lib.util;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.wpilibj.DriverStation.Alliance;
+
+/**
+ * Benchmarks {@link FieldConstants#allianceFlip} for both alliances. Only red flips, so blue
+ * measures the cost of looking up the alliance alone.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FieldConstantsBenchmark {
+
+    @Param({"Blue", "Red"})
+    public Alliance alliance;
+
+    private final Pose2d pose = new Pose2d(2.0, 5.5, Rotation2d.fromDegrees(30.0));
+    private final Translation2d translation = new Translation2d(2.0, 5.5);
+    private final Rotation2d rotation = Rotation2d.fromDegrees(30.0);
+
+    /**
+     * Select the alliance.
+     */
+    @Setup
+    public void setup() {
+        BenchmarkEnvironment.init(alliance);
+    }
+
+    @Benchmark
+    public Pose2d flipPose() {
+        return FieldConstants.allianceFlip(pose);
+    }
+
+    @Benchmark
+    public Translation2d flipTranslation() {
+        return FieldConstants.allianceFlip(translation);
+    }
+
+    @Benchmark
+    public Rotation2d flipRotation() {
+        return FieldConstants.allianceFlip(rotation);
+    }
+}
@@ -0,0 +1,54 @@
+package frc.lib.viz;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.wpilibj.DriverStation.Alliance;
+import frc.lib.sim.SimulatedArena;
+import frc.lib.sim.SimulatedPumbaa;
+import frc.lib.util.BenchmarkEnvironment;
+import frc.robot.Constants;
+
+/**
+ * Benchmarks {@link PumbaaViz#update()}, which recomputes the shot trajectory every loop.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PumbaaVizBenchmark {
+
+    private PumbaaViz viz;
+
+    /**
+     * Create the visualization for a simulated robot holding a note.
+     */
+    @Setup
+    public void setup() {
+        BenchmarkEnvironment.init(Alliance.Blue);
+        SimulatedPumbaa robot = new SimulatedArena().newPumbaa();
+        viz = new PumbaaViz("Viz", robot);
+        Pose2d pose = new Pose2d(3.0, 5.5, Rotation2d.fromDegrees(180.0));
+        robot.setPose(pose);
+        viz.setPose(pose);
+        viz.setElevatorWrist(Constants.ElevatorWristConstants.SetPoints.HOME_HEIGHT,
+            Rotation2d.fromDegrees(40.0));
+    }
+
+    @Benchmark
+    public void update() {
+        viz.update();
+    }
+}
@@ -0,0 +1,55 @@
+package frc.robot.subsystems.elevator_wrist;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.wpilibj.DriverStation.Alliance;
+import edu.wpi.first.wpilibj2.command.button.CommandXboxController;
+import frc.lib.util.BenchmarkEnvironment;
+import frc.lib.viz.PumbaaViz;
+import frc.robot.Constants;
+
+/**
+ * Benchmarks {@link ElevatorWrist#getAngleFromDistance(Pose2d)}, which flips the speaker position
+ * for the alliance and interpolates the shooting table.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ElevatorWristBenchmark {
+
+    @Param({"Blue", "Red"})
+    public Alliance alliance;
+
+    private ElevatorWrist elevatorWrist;
+    private final Pose2d position = new Pose2d(3.0, 5.5, Rotation2d.fromDegrees(180.0));
+
+    /**
+     * Create an elevator/wrist with no hardware behind it.
+     */
+    @Setup
+    public void setup() {
+        BenchmarkEnvironment.init(alliance);
+        elevatorWrist = new ElevatorWrist(new ElevatorWristIO() {},
+            new CommandXboxController(Constants.OPERATOR_ID), new PumbaaViz("Viz", null));
+    }
+
+    @Benchmark
+    public Rotation2d getAngleFromDistance() {
+        return elevatorWrist.getAngleFromDistance(position);
+    }
+}
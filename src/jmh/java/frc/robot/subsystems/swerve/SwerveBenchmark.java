@@ -0,0 +1,62 @@
+package frc.robot.subsystems.swerve;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.wpilibj.DriverStation.Alliance;
+import frc.lib.sim.SimulatedArena;
+import frc.lib.sim.SimulatedPumbaa;
+import frc.lib.util.BenchmarkEnvironment;
+import frc.lib.viz.PumbaaViz;
+import frc.robot.Constants;
+import frc.robot.subsystems.vision.VisionIO;
+
+/**
+ * Benchmarks {@link Swerve#setModuleStates(ChassisSpeeds)}: discretization, inverse kinematics,
+ * desaturation, the setpoint generator's limits and handing each simulated module its state.
+ *
+ * <p>
+ * The speeds are constant, so once the setpoint generator has converged the desired angles stop
+ * changing and the logged desired states reuse their Rotation2d. With changing speeds expect one
+ * Rotation2d per module per call. Odometry, not covered here, allocates one per module per sample,
+ * since measured angles always change. Anything AdvantageKit allocates to record the states is
+ * counted as well.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SwerveBenchmark {
+
+    private Swerve swerve;
+    /** Fast enough in both translation and rotation that desaturation has to scale it down. */
+    private final ChassisSpeeds speeds =
+        new ChassisSpeeds(Constants.Swerve.maxSpeed, 0.5 * Constants.Swerve.maxSpeed,
+            Constants.Swerve.maxAngularVelocity);
+
+    /**
+     * Create a simulated drivetrain.
+     */
+    @Setup
+    public void setup() {
+        BenchmarkEnvironment.init(Alliance.Blue);
+        SimulatedPumbaa robot = new SimulatedArena().newPumbaa();
+        swerve = new Swerve(new SwerveSim(robot), new VisionIO() {}, new PumbaaViz("Viz", robot));
+    }
+
+    @Benchmark
+    public void setModuleStates() {
+        swerve.setModuleStates(speeds);
+    }
+}
@@ -0,0 +1,208 @@
+package frc.lib.math;
+
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
+
+/**
+ * Swerve kinematics on primitive arrays, for the parts of the drive that run every loop. Gives the
+ * same results as {@link SwerveDriveKinematics} and {@link ChassisSpeeds#discretize}, but writes
+ * into caller-owned buffers instead of allocating states, matrices and speeds.
+ *
+ * <p>
+ * Module speeds are in meters per second and module angles in radians, indexed like the module
+ * translations passed to the constructor.
+ */
+public class InPlaceSwerveKinematics {
+    private final int numModules;
+    private final double[] moduleX;
+    private final double[] moduleY;
+    /** Least-squares forward kinematics, 3 rows of 2 * numModules, row-major. */
+    private final double[] forward;
+
+    /**
+     * @param moduleTranslations location of each module relative to the robot center.
+     */
+    public InPlaceSwerveKinematics(Translation2d... moduleTranslations) {
+        if (moduleTranslations.length < 2) {
+            throw new IllegalArgumentException("A swerve drive requires at least two modules");
+        }
+        numModules = moduleTranslations.length;
+        moduleX = new double[numModules];
+        moduleY = new double[numModules];
+        for (int i = 0; i < numModules; i++) {
+            moduleX[i] = moduleTranslations[i].getX();
+            moduleY[i] = moduleTranslations[i].getY();
+        }
+        forward = pseudoInverse();
+    }
+
+    /**
+     * The inverse kinematics matrix A has rows [1, 0, -y] and [0, 1, x] for each module. Forward
+     * kinematics is its pseudo-inverse (A^T A)^-1 A^T, computed once here.
+     */
+    private double[] pseudoInverse() {
+        double sumX = 0.0;
+        double sumY = 0.0;
+        double sumSquares = 0.0;
+        for (int i = 0; i < numModules; i++) {
+            sumX += moduleX[i];
+            sumY += moduleY[i];
+            sumSquares += moduleX[i] * moduleX[i] + moduleY[i] * moduleY[i];
+        }
+        double[][] ata = {{numModules, 0.0, -sumY}, {0.0, numModules, sumX},
+            {-sumY, sumX, sumSquares}};
+        double[][] inverse = invert3x3(ata);
+        int columns = 2 * numModules;
+        double[] result = new double[3 * columns];
+        for (int row = 0; row < 3; row++) {
+            for (int i = 0; i < numModules; i++) {
+                // Column 2i of A^T is [1, 0, -y], column 2i + 1 is [0, 1, x].
+                result[row * columns + 2 * i] = inverse[row][0] - inverse[row][2] * moduleY[i];
+                result[row * columns + 2 * i + 1] = inverse[row][1] + inverse[row][2] * moduleX[i];
+            }
+        }
+        return result;
+    }
+
+    private static double[][] invert3x3(double[][] m) {
+        double c00 = m[1][1] * m[2][2] - m[1][2] * m[2][1];
+        double c01 = m[1][2] * m[2][0] - m[1][0] * m[2][2];
+        double c02 = m[1][0] * m[2][1] - m[1][1] * m[2][0];
+        double det = m[0][0] * c00 + m[0][1] * c01 + m[0][2] * c02;
+        if (Math.abs(det) < 1e-12) {
+            throw new IllegalArgumentException("Module translations are degenerate");
+        }
+        return new double[][] {
+            {c00 / det, (m[0][2] * m[2][1] - m[0][1] * m[2][2]) / det,
+                (m[0][1] * m[1][2] - m[0][2] * m[1][1]) / det},
+            {c01 / det, (m[0][0] * m[2][2] - m[0][2] * m[2][0]) / det,
+                (m[0][2] * m[1][0] - m[0][0] * m[1][2]) / det},
+            {c02 / det, (m[0][1] * m[2][0] - m[0][0] * m[2][1]) / det,
+                (m[0][0] * m[1][1] - m[0][1] * m[1][0]) / det}};
+    }
+
+    /**
+     * Get the number of modules.
+     */
+    public int getNumModules() {
+        return numModules;
+    }
+
+    /**
+     * Convert robot-relative chassis speeds to module states. Like
+     * {@link SwerveDriveKinematics#toSwerveModuleStates(ChassisSpeeds)}, if the chassis is
+     * stopped the angles are left as they were so the wheels don't snap back to zero.
+     *
+     * @param vx forward velocity in meters per second
+     * @param vy leftward velocity in meters per second
+     * @param omega counterclockwise angular velocity in radians per second
+     * @param speeds filled with each module's speed
+     * @param angles filled with each module's angle
+     */
+    public void toModuleStates(double vx, double vy, double omega, double[] speeds,
+        double[] angles) {
+        if (vx == 0.0 && vy == 0.0 && omega == 0.0) {
+            for (int i = 0; i < numModules; i++) {
+                speeds[i] = 0.0;
+            }
+            return;
+        }
+        for (int i = 0; i < numModules; i++) {
+            double x = vx - omega * moduleY[i];
+            double y = vy + omega * moduleX[i];
+            speeds[i] = Math.hypot(x, y);
+            angles[i] = Math.atan2(y, x);
+        }
+    }
+
+    /**
+     * Discretize chassis speeds over {@code dt} like {@link ChassisSpeeds#discretize}, then convert
+     * them to module states with {@link #toModuleStates}. Discretizing keeps the robot from
+     * drifting sideways when it translates and rotates at the same time.
+     *
+     * @param vx forward velocity in meters per second
+     * @param vy leftward velocity in meters per second
+     * @param omega counterclockwise angular velocity in radians per second
+     * @param dt loop period in seconds
+     * @param speeds filled with each module's speed
+     * @param angles filled with each module's angle
+     */
+    public void toDiscreteModuleStates(double vx, double vy, double omega, double dt,
+        double[] speeds, double[] angles) {
+        // The twist that moves the robot along an arc to the pose that holding these speeds
+        // for dt would reach (Pose2d.log of the desired delta).
+        double dtheta = omega * dt;
+        double halfDtheta = dtheta / 2.0;
+        double cosMinusOne = Math.cos(dtheta) - 1.0;
+        double halfThetaByTanOfHalfDtheta;
+        if (Math.abs(cosMinusOne) < 1e-9) {
+            halfThetaByTanOfHalfDtheta = 1.0 - 1.0 / 12.0 * dtheta * dtheta;
+        } else {
+            halfThetaByTanOfHalfDtheta = -(halfDtheta * Math.sin(dtheta)) / cosMinusOne;
+        }
+        double dx = vx * dt;
+        double dy = vy * dt;
+        double twistX = dx * halfThetaByTanOfHalfDtheta + dy * halfDtheta;
+        double twistY = dy * halfThetaByTanOfHalfDtheta - dx * halfDtheta;
+        toModuleStates(twistX / dt, twistY / dt, omega, speeds, angles);
+    }
+
+    /**
+     * Scale module speeds down so none exceeds {@code maxSpeed}, keeping their ratios. Same as
+     * {@link SwerveDriveKinematics#desaturateWheelSpeeds(
+     * edu.wpi.first.math.kinematics.SwerveModuleState[], double)}.
+     *
+     * @param speeds module speeds in meters per second, modified in place
+     * @param maxSpeed maximum module speed in meters per second
+     */
+    public static void desaturate(double[] speeds, double maxSpeed) {
+        double realMaxSpeed = 0.0;
+        for (double speed : speeds) {
+            realMaxSpeed = Math.max(realMaxSpeed, Math.abs(speed));
+        }
+        if (realMaxSpeed > maxSpeed) {
+            double scale = maxSpeed / realMaxSpeed;
+            for (int i = 0; i < speeds.length; i++) {
+                speeds[i] *= scale;
+            }
+        }
+    }
+
+    /**
+     * Convert module states to robot-relative chassis speeds, using a least-squares fit like
+     * {@link SwerveDriveKinematics#toChassisSpeeds}.
+     *
+     * @param speeds each module's speed
+     * @param angles each module's angle
+     * @param out written with the chassis speeds
+     */
+    public void toChassisSpeeds(double[] speeds, double[] angles, ChassisSpeeds out) {
+        int columns = 2 * numModules;
+        double vx = 0.0;
+        double vy = 0.0;
+        double omega = 0.0;
+        for (int i = 0; i < numModules; i++) {
+            double x = speeds[i] * Math.cos(angles[i]);
+            double y = speeds[i] * Math.sin(angles[i]);
+            vx += forward[2 * i] * x + forward[2 * i + 1] * y;
+            vy += forward[columns + 2 * i] * x + forward[columns + 2 * i + 1] * y;
+            omega += forward[2 * columns + 2 * i] * x + forward[2 * columns + 2 * i + 1] * y;
+        }
+        out.vxMetersPerSecond = vx;
+        out.vyMetersPerSecond = vy;
+        out.omegaRadiansPerSecond = omega;
+    }
+
+    /**
+     * Get a rotation of {@code radians}, reusing {@code current} if it is already that angle.
+     * Lets reused states and positions skip allocating while a module holds its angle exactly.
+     * Measured angles carry encoder noise, so in practice this still allocates one Rotation2d per
+     * module per loop: Rotation2d is immutable, and the WPILib estimator only takes positions.
+     */
+    public static Rotation2d updateRotation(Rotation2d current, double radians) {
+        return current != null && current.getRadians() == radians ? current
+            : new Rotation2d(radians);
+    }
+}
@@ -0,0 +1,189 @@
+package frc.lib.math;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Translation2d;
+
+/**
+ * Limits how fast swerve setpoints change, so the modules are never asked for more than they can
+ * do in one loop. Each loop the robot moves part of the way from the last setpoint towards the
+ * requested speeds, as far as the limits allow:
+ * <ul>
+ * <li>no module's velocity changes by more than the maximum acceleration. This applies to the
+ * velocity vector, so turning the wheel's direction of travel counts as well as speeding it
+ * up,</li>
+ * <li>no moving module has to steer faster than the maximum steering velocity. If reaching the
+ * new direction would take longer, the robot slows towards a stop along the way instead of
+ * dragging wheels sideways.</li>
+ * </ul>
+ * Every module moves the same fraction of the way, so modules that were consistent with each other
+ * stay consistent and the wheels don't fight. A stopped module that has to turn to where it is
+ * going steers in place first, and the rest of the robot holds its speed until it is ready.
+ *
+ * <p>
+ * Works on primitive arrays like {@link InPlaceSwerveKinematics} and never allocates. Module speeds
+ * are in meters per second and may be negative when a module drives backwards rather than turning
+ * around. Angles are in radians.
+ */
+public class SwerveSetpointGenerator {
+    /** Meters per second below which a module counts as stopped. */
+    private static final double STOPPED = 1e-3;
+
+    private final InPlaceSwerveKinematics kinematics;
+    private final int numModules;
+    private final double maxSpeed;
+    private final double maxAcceleration;
+    private final double maxSteerVelocity;
+
+    // The last setpoint, as each module's velocity and angle.
+    private final double[] velocityX;
+    private final double[] velocityY;
+    private final double[] angles;
+
+    // Scratch space for the requested speeds.
+    private final double[] requestedSpeeds;
+    private final double[] requestedAngles;
+    private final double[] deltaX;
+    private final double[] deltaY;
+
+    /**
+     * @param maxSpeed maximum module speed in meters per second.
+     * @param maxAcceleration maximum module acceleration in meters per second squared.
+     * @param maxSteerVelocity maximum module steering velocity in radians per second.
+     * @param moduleTranslations location of each module relative to the robot center.
+     */
+    public SwerveSetpointGenerator(double maxSpeed, double maxAcceleration,
+        double maxSteerVelocity, Translation2d... moduleTranslations) {
+        this.kinematics = new InPlaceSwerveKinematics(moduleTranslations);
+        this.numModules = moduleTranslations.length;
+        this.maxSpeed = maxSpeed;
+        this.maxAcceleration = maxAcceleration;
+        this.maxSteerVelocity = maxSteerVelocity;
+        this.velocityX = new double[numModules];
+        this.velocityY = new double[numModules];
+        this.angles = new double[numModules];
+        this.requestedSpeeds = new double[numModules];
+        this.requestedAngles = new double[numModules];
+        this.deltaX = new double[numModules];
+        this.deltaY = new double[numModules];
+    }
+
+    /**
+     * Start from the drivetrain's measured state, e.g. while disabled, so the first setpoint after
+     * enabling starts where the robot actually is.
+     *
+     * @param speeds each module's measured speed
+     * @param moduleAngles each module's measured angle
+     */
+    public void reset(double[] speeds, double[] moduleAngles) {
+        for (int i = 0; i < numModules; i++) {
+            velocityX[i] = speeds[i] * Math.cos(moduleAngles[i]);
+            velocityY[i] = speeds[i] * Math.sin(moduleAngles[i]);
+            angles[i] = moduleAngles[i];
+        }
+    }
+
+    /**
+     * Get the next setpoint. The requested speeds are discretized and desaturated like
+     * {@link InPlaceSwerveKinematics#toDiscreteModuleStates} and
+     * {@link InPlaceSwerveKinematics#desaturate}, then approached as fast as the limits allow.
+     *
+     * @param vx requested forward velocity in meters per second
+     * @param vy requested leftward velocity in meters per second
+     * @param omega requested counterclockwise angular velocity in radians per second
+     * @param dt loop period in seconds
+     * @param speeds filled with each module's speed
+     * @param moduleAngles filled with each module's angle
+     */
+    public void generate(double vx, double vy, double omega, double dt, double[] speeds,
+        double[] moduleAngles) {
+        kinematics.toDiscreteModuleStates(vx, vy, omega, dt, requestedSpeeds, requestedAngles);
+        InPlaceSwerveKinematics.desaturate(requestedSpeeds, maxSpeed);
+
+        double maxVelocityStep = maxAcceleration * dt;
+        double maxSteerStep = maxSteerVelocity * dt;
+        // Past 90 degrees a module can always reverse instead, so steering never limits.
+        double tanMaxSteerStep = maxSteerStep < Math.PI / 2.0 ? Math.tan(maxSteerStep) : -1.0;
+        double s = 1.0;
+        for (int i = 0; i < numModules; i++) {
+            double dx = requestedSpeeds[i] * Math.cos(requestedAngles[i]) - velocityX[i];
+            double dy = requestedSpeeds[i] * Math.sin(requestedAngles[i]) - velocityY[i];
+            deltaX[i] = dx;
+            deltaY[i] = dy;
+            double step = Math.hypot(dx, dy);
+            if (step * s > maxVelocityStep) {
+                s = maxVelocityStep / step;
+            }
+            if (tanMaxSteerStep >= 0.0) {
+                s = steerLimit(angles[i], velocityX[i], velocityY[i], dx, dy, tanMaxSteerStep, s);
+            }
+        }
+
+        for (int i = 0; i < numModules; i++) {
+            double x = velocityX[i] + s * deltaX[i];
+            double y = velocityY[i] + s * deltaY[i];
+            double speed = Math.hypot(x, y);
+            double target;
+            if (speed >= STOPPED) {
+                target = Math.atan2(y, x);
+            } else {
+                speed = 0.0;
+                // Point a stopped module where it is about to go, or leave it where it is.
+                target = requestedSpeeds[i] >= STOPPED ? requestedAngles[i] : angles[i];
+            }
+            double error = MathUtil.angleModulus(target - angles[i]);
+            if (error > Math.PI / 2.0) {
+                error -= Math.PI;
+                speed = -speed;
+            } else if (error < -Math.PI / 2.0) {
+                error += Math.PI;
+                speed = -speed;
+            }
+            double steer = MathUtil.clamp(error, -maxSteerStep, maxSteerStep);
+            angles[i] = MathUtil.angleModulus(angles[i] + steer);
+            speeds[i] = speed * Math.cos(error - steer);
+            moduleAngles[i] = angles[i];
+            velocityX[i] = speeds[i] * Math.cos(angles[i]);
+            velocityY[i] = speeds[i] * Math.sin(angles[i]);
+        }
+    }
+
+    /**
+     * Limit how far along the velocity change (x, y) + s * (dx, dy) a module at {@code angle} may
+     * go before its direction of travel is more than the maximum steering step away from its angle,
+     * either way round. That is where the velocity leaves the double cone |y'| <= tan * |x'|,
+     * measured in the module's frame, so it is the first positive crossing of one of the cone's two
+     * edges. The last setpoint is always along the wheel, so it starts inside the cone.
+     */
+    private static double steerLimit(double angle, double x, double y, double dx, double dy,
+        double tan, double s) {
+        if (Math.hypot(dx, dy) < STOPPED) {
+            return s;
+        }
+        double cos = Math.cos(angle);
+        double sin = Math.sin(angle);
+        double alongDx = dx * cos + dy * sin;
+        double acrossDy = -dx * sin + dy * cos;
+        if (Math.hypot(x, y) < STOPPED) {
+            // A stopped module can only start off along its wheel. Otherwise it steers in place
+            // first, and everything else waits for it.
+            return Math.abs(acrossDy) <= tan * Math.abs(alongDx) ? s : 0.0;
+        }
+        double alongX = x * cos + y * sin;
+        double acrossY = -x * sin + y * cos;
+        s = crossing(alongX, acrossY, alongDx, acrossDy, tan, s);
+        return crossing(alongX, acrossY, alongDx, acrossDy, -tan, s);
+    }
+
+    /**
+     * Get where (x, y) + t * (dx, dy) crosses the line y = slope * x, if that is in (0, s).
+     */
+    private static double crossing(double x, double y, double dx, double dy, double slope,
+        double s) {
+        double denominator = dy - slope * dx;
+        if (denominator == 0.0) {
+            return s;
+        }
+        double t = (slope * x - y) / denominator;
+        return t > 0.0 && t < s ? t : s;
+    }
+}
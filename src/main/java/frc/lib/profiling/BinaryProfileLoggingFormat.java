@@ -0,0 +1,128 @@
+package frc.lib.profiling;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import frc.lib.profiling.LoggingProfiler.LocatedInfo;
+
+/**
+ * Writes the profile as a compact binary record, logged as raw bytes. Every integer after the
+ * header is an unsigned LEB128 varint, and times are left in the profiler's raw units, so the
+ * output is a fraction of the size of the JSON tree and needs no number formatting to produce.
+ *
+ * <p>
+ * Layout:
+ *
+ * <pre>
+ * int    magic ('P', 'R', 'F', 'B')
+ * byte   version (3)
+ * double timeDivisor
+ * varint nameCount
+ * nameCount * { varint byteLength, UTF-8 bytes }
+ * node (pre-order, starting at the root) {
+ *     varint nameIndex
+ *     varint childCount
+ *     varint visits, totalTime, minTime, maxTime, p50Time, p90Time, p99Time, p999Time,
+ *            allocatedBytes, overrunsCaused
+ *     childCount * node
+ * }
+ * </pre>
+ */
+public final class BinaryProfileLoggingFormat implements ProfileLoggingFormat {
+
+    static final int MAGIC = ('P' << 24) | ('R' << 16) | ('F' << 8) | 'B';
+    private static final int VERSION = 3;
+
+    @Override
+    public int compare(String leftName, LocatedInfo leftInfo, String rightName,
+        LocatedInfo rightInfo) {
+        return 0;
+    }
+
+    @Override
+    public void write(String name, LocatedInfo info, double timeDivisor, OutputStream outStream)
+        throws IOException {
+        DataOutputStream out = new DataOutputStream(outStream);
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeDouble(timeDivisor);
+
+        Map<String, Integer> nameIndices = new HashMap<>();
+        List<String> names = new ArrayList<>();
+        collectNames(name, info, nameIndices, names);
+        writeVarLong(out, names.size());
+        for (String n : names) {
+            byte[] bytes = n.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(out, bytes.length);
+            out.write(bytes);
+        }
+        writeNode(out, name, info, nameIndices);
+        out.flush();
+    }
+
+    private static void collectNames(String name, LocatedInfo info,
+        Map<String, Integer> nameIndices, List<String> names) {
+        if (nameIndices.putIfAbsent(name, names.size()) == null) {
+            names.add(name);
+        }
+        for (var entry : info.children.entrySet()) {
+            collectNames(entry.getKey(), entry.getValue(), nameIndices, names);
+        }
+    }
+
+    private void writeNode(OutputStream out, String name, LocatedInfo info,
+        Map<String, Integer> nameIndices) throws IOException {
+        writeVarLong(out, nameIndices.get(name));
+        writeVarLong(out, info.children.size());
+        writeVarLong(out, info.visits);
+        writeVarLong(out, info.totalTime);
+        writeVarLong(out, info.minTime);
+        writeVarLong(out, info.maxTime);
+        writeVarLong(out, info.p50Time);
+        writeVarLong(out, info.p90Time);
+        writeVarLong(out, info.p99Time);
+        writeVarLong(out, info.p999Time);
+        writeVarLong(out, info.allocatedBytes);
+        writeVarLong(out, info.overruns);
+        for (var entry : info.children.entrySet()) {
+            writeNode(out, entry.getKey(), entry.getValue(), nameIndices);
+        }
+    }
+
+    /**
+     * Write {@code value} as an unsigned LEB128 varint. Negative values are written as zero.
+     */
+    static void writeVarLong(OutputStream out, long value) throws IOException {
+        long v = Math.max(value, 0);
+        while ((v & ~0x7FL) != 0) {
+            out.write((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.write((int) v);
+    }
+
+    @Override
+    public void begin(OutputStream outputStream) {
+
+    }
+
+    @Override
+    public void end(OutputStream outputStream) {
+
+    }
+
+    @Override
+    public String key() {
+        return "profile/binary";
+    }
+
+    @Override
+    public boolean isBinary() {
+        return true;
+    }
+}
@@ -33,6 +33,16 @@ public final class EmptyProfiler implements Profiler {
 
     }
 
+    @Override
+    public void push(int locationId) {
+
+    }
+
+    @Override
+    public void mark(int locationId) {
+
+    }
+
     @Override
     public void pop() {
 
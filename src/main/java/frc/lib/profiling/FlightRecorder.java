@@ -0,0 +1,241 @@
+package frc.lib.profiling;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import org.littletonrobotics.junction.Logger;
+
+/**
+ * Preallocated ring buffer holding the full timing tree of each of the last few ticks. Aggregated
+ * profiles average away the single tick that overran the loop; this keeps the individual ticks
+ * around so they can be inspected after the fact.
+ *
+ * <p>
+ * When a tick takes longer than the configured budget, the recorder waits for a few more ticks and
+ * then writes the ticks surrounding the overrun to {@code profile/flightRecorder} as a compact
+ * binary record. All storage is allocated up front; only the dump itself allocates.
+ *
+ * <p>
+ * The dump is big-endian and laid out as follows:
+ *
+ * <pre>
+ * int    magic ('F', 'R', 'E', 'C')
+ * short  version (1)
+ * double timeDivisor
+ * int    nameCount
+ * nameCount * { short locationId, UTF name }
+ * int    tickCount
+ * tickCount * {
+ *     long  tickStart
+ *     int   tickDuration
+ *     short eventCount
+ *     short droppedEvents
+ *     eventCount * { short locationId, byte depth, int startOffset, int duration }
+ * }
+ * </pre>
+ *
+ * <p>
+ * Events are stored in the order they were pushed, so the tree can be rebuilt from each event's
+ * depth. Times are in the units of the owning profiler's time getter.
+ */
+public final class FlightRecorder {
+
+    static final int MAGIC = ('F' << 24) | ('R' << 16) | ('E' << 8) | 'C';
+    private static final short VERSION = 1;
+    private static final int DEFAULT_EVENTS_PER_TICK = 128;
+    private static final int DEFAULT_TICKS_BEFORE = 50;
+    private static final int DEFAULT_TICKS_AFTER = 10;
+    private static final int MAX_DEPTH = 64;
+
+    private final int capacity;
+    private final int eventsPerTick;
+    private final long tickBudget;
+    private final int ticksBefore;
+    private final int ticksAfter;
+
+    private final long[] tickStart;
+    private final int[] tickDuration;
+    private final int[] tickEventCount;
+    private final int[] tickDropped;
+    private final short[] eventLocation;
+    private final byte[] eventDepth;
+    private final int[] eventStart;
+    private final int[] eventDuration;
+    private final int[] openEvents = new int[MAX_DEPTH];
+
+    private long ticksRecorded;
+    private int currentTick;
+    private int depth;
+    private long overruns;
+    private boolean triggered;
+    private long triggerTick;
+    private double timeDivisor = 1.0;
+
+    /**
+     * Create a flight recorder with room for 128 profile events per tick, dumping 50 ticks before
+     * and 10 ticks after any overrun.
+     *
+     * @param capacity number of ticks kept in the ring buffer.
+     * @param tickBudget ticks longer than this (in profiler time units) trigger a dump.
+     */
+    public FlightRecorder(int capacity, long tickBudget) {
+        this(capacity, DEFAULT_EVENTS_PER_TICK, tickBudget,
+            Math.min(DEFAULT_TICKS_BEFORE, capacity - DEFAULT_TICKS_AFTER - 1),
+            DEFAULT_TICKS_AFTER);
+    }
+
+    /**
+     * @param capacity number of ticks kept in the ring buffer.
+     * @param eventsPerTick maximum number of pushes recorded per tick. Further pushes are counted
+     *        but not stored.
+     * @param tickBudget ticks longer than this (in profiler time units) trigger a dump.
+     * @param ticksBefore number of ticks before the overrunning tick included in a dump.
+     * @param ticksAfter number of ticks after the overrunning tick included in a dump.
+     * @throws IllegalArgumentException if the dump window doesn't fit in {@code capacity}.
+     */
+    public FlightRecorder(int capacity, int eventsPerTick, long tickBudget, int ticksBefore,
+        int ticksAfter) {
+        if (capacity <= 0 || eventsPerTick <= 0 || ticksBefore < 0 || ticksAfter < 0
+            || ticksBefore + ticksAfter + 1 > capacity) {
+            throw new IllegalArgumentException("Flight recorder window of " + ticksBefore
+                + " + 1 + " + ticksAfter + " ticks does not fit in a capacity of " + capacity
+                + ".");
+        }
+        this.capacity = capacity;
+        this.eventsPerTick = eventsPerTick;
+        this.tickBudget = tickBudget;
+        this.ticksBefore = ticksBefore;
+        this.ticksAfter = ticksAfter;
+        this.tickStart = new long[capacity];
+        this.tickDuration = new int[capacity];
+        this.tickEventCount = new int[capacity];
+        this.tickDropped = new int[capacity];
+        this.eventLocation = new short[capacity * eventsPerTick];
+        this.eventDepth = new byte[capacity * eventsPerTick];
+        this.eventStart = new int[capacity * eventsPerTick];
+        this.eventDuration = new int[capacity * eventsPerTick];
+    }
+
+    /**
+     * Set the divisor written into dumps so readers can convert times to milliseconds.
+     */
+    void setTimeDivisor(double timeDivisor) {
+        this.timeDivisor = timeDivisor;
+    }
+
+    /**
+     * Number of ticks that have exceeded the budget so far.
+     */
+    public long getOverruns() {
+        return overruns;
+    }
+
+    void startTick(long time) {
+        currentTick = (int) (ticksRecorded % capacity);
+        tickStart[currentTick] = time;
+        tickEventCount[currentTick] = 0;
+        tickDropped[currentTick] = 0;
+        depth = 0;
+    }
+
+    void push(int locationId, long time) {
+        int count = tickEventCount[currentTick];
+        int slot = -1;
+        if (count < eventsPerTick && depth < MAX_DEPTH) {
+            slot = currentTick * eventsPerTick + count;
+            eventLocation[slot] = (short) locationId;
+            eventDepth[slot] = (byte) depth;
+            eventStart[slot] = (int) (time - tickStart[currentTick]);
+            eventDuration[slot] = 0;
+            tickEventCount[currentTick] = count + 1;
+        } else {
+            tickDropped[currentTick]++;
+        }
+        if (depth < MAX_DEPTH) {
+            openEvents[depth] = slot;
+        }
+        depth++;
+    }
+
+    void pop(long time) {
+        depth--;
+        if (depth < MAX_DEPTH) {
+            int slot = openEvents[depth];
+            if (slot >= 0) {
+                eventDuration[slot] = (int) (time - tickStart[currentTick]) - eventStart[slot];
+            }
+        }
+    }
+
+    void endTick(long time) {
+        long duration = time - tickStart[currentTick];
+        tickDuration[currentTick] = (int) duration;
+        long tick = ticksRecorded++;
+        if (duration > tickBudget) {
+            overruns++;
+            if (!triggered) {
+                triggered = true;
+                triggerTick = tick;
+            }
+        }
+        if (triggered && tick - triggerTick >= ticksAfter) {
+            triggered = false;
+            long first = Math.max(triggerTick - ticksBefore, ticksRecorded - capacity);
+            Logger.recordOutput("profile/flightRecorder", dump(Math.max(first, 0), tick));
+            Logger.recordOutput("profile/overruns", overruns);
+        }
+    }
+
+    /**
+     * Encode ticks {@code first} through {@code last} (inclusive, counted since the recorder was
+     * created) into the binary format described above.
+     */
+    private byte[] dump(long first, long last) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeDouble(timeDivisor);
+
+            boolean[] used = new boolean[ProfilerLocations.count()];
+            int nameCount = 0;
+            for (long tick = first; tick <= last; tick++) {
+                int index = (int) (tick % capacity);
+                for (int i = 0; i < tickEventCount[index]; i++) {
+                    int location = eventLocation[index * eventsPerTick + i];
+                    if (!used[location]) {
+                        used[location] = true;
+                        nameCount++;
+                    }
+                }
+            }
+            out.writeInt(nameCount);
+            for (int location = 0; location < used.length; location++) {
+                if (used[location]) {
+                    out.writeShort(location);
+                    out.writeUTF(ProfilerLocations.name(location));
+                }
+            }
+
+            out.writeInt((int) (last - first + 1));
+            for (long tick = first; tick <= last; tick++) {
+                int index = (int) (tick % capacity);
+                out.writeLong(tickStart[index]);
+                out.writeInt(tickDuration[index]);
+                out.writeShort(tickEventCount[index]);
+                out.writeShort(Math.min(tickDropped[index], Short.MAX_VALUE));
+                for (int i = 0; i < tickEventCount[index]; i++) {
+                    int slot = index * eventsPerTick + i;
+                    out.writeShort(eventLocation[slot]);
+                    out.writeByte(eventDepth[slot]);
+                    out.writeInt(eventStart[slot]);
+                    out.writeInt(eventDuration[slot]);
+                }
+            }
+        } catch (IOException e) {
+            // ByteArrayOutputStream doesn't throw.
+            throw new RuntimeException(e);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,80 @@
+package frc.lib.profiling;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import frc.lib.profiling.LoggingProfiler.LocatedInfo;
+
+/**
+ * Writes the profile as a nested JSON tree, with children sorted by total time. Meant for offline
+ * viewing; {@link BinaryProfileLoggingFormat} is much smaller and cheaper to produce.
+ */
+public final class JsonProfileLoggingFormat implements ProfileLoggingFormat {
+
+    private final JsonFactory factory = new JsonFactory();
+
+    @Override
+    public int compare(String leftName, LocatedInfo leftInfo, String rightName,
+        LocatedInfo rightInfo) {
+        return Long.compare(rightInfo.totalTime, leftInfo.totalTime);
+    }
+
+    @Override
+    public void write(String name, LocatedInfo info, double timeDivisor, OutputStream outStream)
+        throws IOException {
+        JsonGenerator generator = factory.createGenerator(outStream);
+        writeJSON(generator, info, timeDivisor, 0, info.totalTime, info.visits);
+        generator.flush();
+    }
+
+    private void writeJSON(JsonGenerator generator, LocatedInfo info, double timeDivisor,
+        long parentTotal, long rootTotal, long ticks) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("visitCount", info.visits);
+        generator.writeNumberField("totalTime", info.totalTime / timeDivisor);
+        if (parentTotal > 0) {
+            double percent = (double) info.totalTime / (double) parentTotal * 100.0;
+            generator.writeNumberField("percentOfParent", percent);
+        }
+        if (rootTotal > 0) {
+            double percent = (double) info.totalTime / (double) rootTotal * 100.0;
+            generator.writeNumberField("percentOfRoot", percent);
+        }
+        generator.writeNumberField("maxTime", info.maxTime / timeDivisor);
+        generator.writeNumberField("minTime", info.minTime / timeDivisor);
+        generator.writeNumberField("avgTime", info.totalTime / timeDivisor / info.visits);
+        generator.writeNumberField("p50Time", info.p50Time / timeDivisor);
+        generator.writeNumberField("p90Time", info.p90Time / timeDivisor);
+        generator.writeNumberField("p99Time", info.p99Time / timeDivisor);
+        generator.writeNumberField("p999Time", info.p999Time / timeDivisor);
+        generator.writeNumberField("allocatedBytes", info.allocatedBytes);
+        generator.writeNumberField("allocatedBytesPerVisit",
+            (double) info.allocatedBytes / info.visits);
+        generator.writeNumberField("allocatedBytesPerTick", (double) info.allocatedBytes / ticks);
+        generator.writeNumberField("overrunsCaused", info.overruns);
+        generator.writeFieldName("children");
+        generator.writeStartObject();
+        for (var entry : sortedChildren(info)) {
+            generator.writeFieldName(entry.getKey());
+            writeJSON(generator, entry.getValue(), timeDivisor, info.totalTime, rootTotal, ticks);
+        }
+        generator.writeEndObject();
+        generator.writeEndObject();
+    }
+
+    @Override
+    public void begin(OutputStream outputStream) {
+
+    }
+
+    @Override
+    public void end(OutputStream outputStream) {
+
+    }
+
+    @Override
+    public String key() {
+        return "profile/json";
+    }
+}
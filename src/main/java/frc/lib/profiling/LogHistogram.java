@@ -0,0 +1,88 @@
+package frc.lib.profiling;
+
+/**
+ * Fixed-size, log-bucketed histogram layout for non-negative {@code long} samples. Histograms are
+ * stored as slices of a shared {@code int[]} (see {@link ProfileNodeTable}), so this class only
+ * provides the bucket math.
+ *
+ * <p>
+ * Values below {@link #SUB_BUCKETS} get a bucket each. Above that, every power of two is split into
+ * {@link #SUB_BUCKETS} linear sub-buckets, giving a worst case relative error of
+ * {@code 1 / SUB_BUCKETS} (12.5%). Values at or above {@code 2^MAX_EXPONENT} land in the last
+ * bucket.
+ */
+final class LogHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int MAX_EXPONENT = 40;
+
+    /** Number of linear buckets per power of two. */
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /** Number of buckets in a single histogram. */
+    static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private LogHistogram() {}
+
+    /**
+     * Get the bucket index for {@code value}. Negative values are counted as zero.
+     */
+    static int bucket(long value) {
+        if (value < SUB_BUCKETS) {
+            return value <= 0 ? 0 : (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent >= MAX_EXPONENT) {
+            return BUCKET_COUNT - 1;
+        }
+        int mantissa = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + mantissa;
+    }
+
+    /**
+     * Smallest value that falls in bucket {@code index}.
+     */
+    static long lowerBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long mantissa = index % SUB_BUCKETS;
+        return (SUB_BUCKETS + mantissa) << (exponent - SUB_BUCKET_BITS);
+    }
+
+    /**
+     * Smallest value that falls in the bucket after {@code index}.
+     */
+    static long upperBound(int index) {
+        return lowerBound(index + 1);
+    }
+
+    /**
+     * Estimate the value at {@code quantile} (between 0 and 1) of the histogram starting at
+     * {@code offset} in {@code counts}. The result is the midpoint of the bucket containing the
+     * quantile, clamped to {@code [min, max]} since those are known exactly.
+     *
+     * @param total sum of the histogram's counts.
+     */
+    static long valueAt(int[] counts, int offset, long total, double quantile, long min,
+        long max) {
+        if (total <= 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(quantile * total);
+        if (rank < 1) {
+            rank = 1;
+        }
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts[offset + i];
+            if (seen >= rank) {
+                long low = lowerBound(i);
+                long value = low + (upperBound(i) - 1 - low) / 2;
+                return Math.max(min, Math.min(max, value));
+            }
+        }
+        return max;
+    }
+}
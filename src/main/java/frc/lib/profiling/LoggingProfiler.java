@@ -1,32 +1,64 @@
 package frc.lib.profiling;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.function.LongSupplier;
 import org.littletonrobotics.junction.Logger;
-import com.fasterxml.jackson.core.JsonFactory;
-import com.fasterxml.jackson.core.JsonGenerator;
+import com.sun.management.ThreadMXBean;
 import frc.lib.util.LongArrayList;
 
 /**
  * This logger saves runtime performance metrics to memory. These metrics are subsequently written
  * to a file when {@link #save() save} is called.
+ *
+ * <p>
+ * Locations are tracked by their interned ID (see {@link Profiler#intern(String)}) and the call
+ * tree is kept in a {@link ProfileNodeTable}, so once every path through the profile stack has been
+ * seen, {@link #push(int) push} and {@link #pop() pop} do not allocate.
+ *
+ * <p>
+ * Every node keeps a fixed-size log-bucketed histogram of its visit times alongside min, max and
+ * total, so saved profiles include p50, p90, p99 and p99.9 latencies.
+ *
+ * <p>
+ * Metrics are double-buffered: {@link #save() save} only swaps the active node table for a clean
+ * one and hands the full table to a low-priority {@link ProfileWriter} thread, which encodes it
+ * with each {@link ProfileLoggingFormat}. The results are published at the end of the next tick.
+ * By default only {@link JsonProfileLoggingFormat} is used.
+ *
+ * <p>
+ * Where the JVM supports it, the bytes allocated by the profiled thread are also sampled at every
+ * push and pop (via {@link ThreadMXBean#getCurrentThreadAllocatedBytes()}) and attributed to each
+ * node, giving an allocation budget per subsystem.
+ *
+ * <p>
+ * When a tick takes longer than the {@link #setTickBudget(long) tick budget}, the overrun is
+ * attributed to the node whose time grew the most compared to its average (see
+ * {@link ProfileNodeTable#overrunCause(int)}). The cause is logged under {@code profile/overrun}
+ * and counted per node, and the count is saved with the rest of the profile.
+ *
+ * <p>
+ * An optional {@link FlightRecorder} additionally keeps the individual timing tree of recent ticks
+ * and dumps them when a tick goes over budget.
  */
 public final class LoggingProfiler implements Profiler {
-    private static final char SPLIT_CHAR = '\u001e';
+    private static final int ROOT = Profiler.intern("root");
+    private static final ThreadMXBean THREADS = allocationCounter();
 
-    private final List<String> path = new ArrayList<>();
     private final LongArrayList timeList = new LongArrayList();
-    private final Map<String, LoggingProfiler.LocatedInfo> locationInfos = new HashMap<>();
+    private final LongArrayList allocationList = new LongArrayList();
+    private ProfileNodeTable nodes = new ProfileNodeTable();
+    private final ProfileWriter writer;
+    private final FlightRecorder recorder;
     private final LongSupplier timeGetter;
     private final double timeDivisor;
     private boolean tickStarted;
-    private String fullPath = "";
-    private LoggingProfiler.LocatedInfo currentInfo;
+    private int currentNode = ProfileNodeTable.SENTINEL;
+    private long lastMark;
+    private long lastMarkAllocation;
+    private long tickBudget = Long.MAX_VALUE;
+    private long overrunCount;
 
     /**
      * @param timeGetter a supplier for the current time.
@@ -34,62 +66,79 @@ public final class LoggingProfiler implements Profiler {
      *        output to a file.
      */
     public LoggingProfiler(LongSupplier timeGetter, double timeDivisor) {
+        this(timeGetter, timeDivisor, null);
+    }
+
+    /**
+     * @param timeGetter a supplier for the current time.
+     * @param timeDivisor a conversion factor turning the units of {@code timeGetter} to the units
+     *        output to a file.
+     * @param recorder a flight recorder to keep the last few individual ticks in, or {@code null}.
+     */
+    public LoggingProfiler(LongSupplier timeGetter, double timeDivisor, FlightRecorder recorder) {
+        this(timeGetter, timeDivisor, recorder, new JsonProfileLoggingFormat());
+    }
+
+    /**
+     * @param timeGetter a supplier for the current time.
+     * @param timeDivisor a conversion factor turning the units of {@code timeGetter} to the units
+     *        output to a file.
+     * @param recorder a flight recorder to keep the last few individual ticks in, or {@code null}.
+     * @param formats the formats each saved profile is logged in.
+     */
+    public LoggingProfiler(LongSupplier timeGetter, double timeDivisor, FlightRecorder recorder,
+        ProfileLoggingFormat... formats) {
         this.timeGetter = timeGetter;
         this.timeDivisor = timeDivisor;
+        this.recorder = recorder;
+        if (recorder != null) {
+            recorder.setTimeDivisor(timeDivisor);
+        }
+        this.writer = new ProfileWriter(timeGetter, timeDivisor, formats);
     }
 
-    @Override
-    public void save() {
-        long start = timeGetter.getAsLong();
-        HashMap<String, LocatedInfoJSON> jsons = new HashMap<>();
-        for (var entry : locationInfos.entrySet()) {
-            var value = new LocatedInfoJSON();
-            value.visits = entry.getValue().visits;
-            value.maxTime = entry.getValue().maxTime;
-            value.minTime = entry.getValue().minTime;
-            value.totalTime = entry.getValue().totalTime;
-            value.children = new HashMap<>();
-            jsons.put(entry.getKey(), value);
+    /**
+     * Get the thread bean used to count allocations, or {@code null} if this JVM can't count them.
+     */
+    private static ThreadMXBean allocationCounter() {
+        if (ManagementFactory.getThreadMXBean() instanceof ThreadMXBean bean
+            && bean.isThreadAllocatedMemorySupported()) {
+            bean.setThreadAllocatedMemoryEnabled(true);
+            return bean;
         }
+        return null;
+    }
 
-        System.out.println("----");
-        for (var entry : jsons.entrySet()) {
-            System.out.println(entry.getKey());
-        }
-        System.out.println("----");
+    /**
+     * Total bytes allocated by the current thread so far, or 0 if allocations can't be counted.
+     */
+    static long allocatedBytes() {
+        return THREADS == null ? 0 : THREADS.getCurrentThreadAllocatedBytes();
+    }
 
-        for (var entry : jsons.entrySet()) {
-            String key = entry.getKey();
-            String[] parts = key.split("\\" + SPLIT_CHAR);
-            if (parts.length < 2) {
-                continue;
-            }
-            StringBuilder parent = new StringBuilder();
-            for (int i = 0; i < parts.length - 2; i++) {
-                parent.append(parts[i]);
-                parent.append(SPLIT_CHAR);
-            }
-            parent.append(parts[parts.length - 2]);
-            System.out.println(parent.toString());
-            jsons.get(parent.toString()).children.put(parts[parts.length - 1], entry.getValue());
-        }
+    /**
+     * Set the tick length (in the units of the time getter) above which a tick counts as an
+     * overrun. Overruns aren't tracked until this is set.
+     *
+     * <p>
+     * The budget is compared against the time from {@link #startTick()} to {@link #endTick()}, so
+     * ticks must only span the loop's own code. A tick that also spans the wait for the next loop
+     * always measures about one loop period and would count as an overrun on any jitter.
+     */
+    public void setTickBudget(long tickBudget) {
+        this.tickBudget = tickBudget;
+    }
 
-        // Write to file.
-        try {
-            ByteArrayOutputStream outStream = new ByteArrayOutputStream();
-            LocatedInfoJSON root = jsons.get("root");
-            JsonFactory factory = new JsonFactory();
-            JsonGenerator generator = factory.createGenerator(outStream);
-            root.writeJSON(generator, timeDivisor, 0, root.totalTime);
-            generator.flush();
-            generator.close();
-            Logger.recordOutput("profile/json", new String(outStream.toByteArray()));
-        } catch (IOException e) {
-            e.printStackTrace();
+    @Override
+    public void save() {
+        if (this.tickStarted) {
+            throw new RuntimeException("Cannot save the profiler in the middle of a tick.");
         }
+        long start = timeGetter.getAsLong();
+        this.nodes = this.writer.submit(this.nodes);
         long end = timeGetter.getAsLong();
-        double timeDiff = (end - start) / timeDivisor;
-        Logger.recordOutput("profile/timeToWrite", timeDiff);
+        Logger.recordOutput("profile/timeToSave", (end - start) / timeDivisor);
+        Logger.recordOutput("profile/droppedSaves", this.writer.droppedSaves());
     }
 
     @Override
@@ -98,9 +147,14 @@ public final class LoggingProfiler implements Profiler {
             throw new RuntimeException("Profiler tick already started. Missing endTick()?");
         } else {
             this.tickStarted = true;
-            this.fullPath = "";
-            this.path.clear();
-            this.push("root");
+            this.currentNode = ProfileNodeTable.SENTINEL;
+            this.timeList.clear();
+            this.allocationList.clear();
+            this.nodes.clearTick();
+            if (this.recorder != null) {
+                this.recorder.startTick(timeGetter.getAsLong());
+            }
+            this.push(ROOT);
         }
     }
 
@@ -109,29 +163,89 @@ public final class LoggingProfiler implements Profiler {
         if (!this.tickStarted) {
             throw new RuntimeException("Profiler tick already ended. Missing startTick()?");
         } else {
-            this.push(fullPath);
+            int rootNode = this.currentNode;
             this.pop();
             this.tickStarted = false;
-            if (!this.fullPath.isEmpty()) {
+            if (this.currentNode != ProfileNodeTable.SENTINEL) {
                 throw new RuntimeException(
                     "Profiler tick ended before path was fully popped. Mismatched push/pop?");
             }
+            if (this.nodes.tickTime[rootNode] > this.tickBudget) {
+                this.recordOverrun(rootNode);
+            }
+            if (this.recorder != null) {
+                this.recorder.endTick(timeGetter.getAsLong());
+            }
+            this.writer.publishCompleted();
         }
     }
 
+    /**
+     * Attribute the overrun of the tick timed by {@code rootNode} and log its cause.
+     */
+    private void recordOverrun(int rootNode) {
+        int cause = this.nodes.overrunCause(rootNode);
+        this.nodes.overruns[cause]++;
+        this.overrunCount++;
+        StringBuilder path = new StringBuilder(ProfilerLocations.name(this.nodes.location[cause]));
+        for (int node = this.nodes.parent[cause]; node != ProfileNodeTable.SENTINEL; node =
+            this.nodes.parent[node]) {
+            path.insert(0, '/').insert(0, ProfilerLocations.name(this.nodes.location[node]));
+        }
+        Logger.recordOutput("profile/overrun/cause", path.toString());
+        Logger.recordOutput("profile/overrun/tickTime",
+            this.nodes.tickTime[rootNode] / timeDivisor);
+        Logger.recordOutput("profile/overrun/causeTime", this.nodes.tickTime[cause] / timeDivisor);
+        Logger.recordOutput("profile/overrun/causeExcessTime",
+            this.nodes.excessTime(cause) / timeDivisor);
+        Logger.recordOutput("profile/overrun/count", this.overrunCount);
+    }
+
     @Override
     public void push(String location) {
         if (!this.tickStarted) {
             throw new RuntimeException("Cannot push '" + location
                 + "' to the profiler if profiler tick hasn't started. Missing startTick()?");
         } else {
-            if (!this.fullPath.isEmpty()) {
-                this.fullPath = this.fullPath + SPLIT_CHAR;
+            this.push(Profiler.intern(location));
+        }
+    }
+
+    @Override
+    public void push(int locationId) {
+        if (!this.tickStarted) {
+            throw new RuntimeException("Cannot push '" + ProfilerLocations.name(locationId)
+                + "' to the profiler if profiler tick hasn't started. Missing startTick()?");
+        } else {
+            this.currentNode = this.nodes.child(this.currentNode, locationId);
+            long allocated = allocatedBytes();
+            long time = timeGetter.getAsLong();
+            this.timeList.add(time);
+            this.allocationList.add(allocated);
+            this.lastMark = time;
+            this.lastMarkAllocation = allocated;
+            if (this.recorder != null) {
+                this.recorder.push(locationId, time);
             }
-            this.fullPath += location;
-            this.path.add(this.fullPath);
-            this.timeList.add(timeGetter.getAsLong());
-            this.currentInfo = null;
+        }
+    }
+
+    @Override
+    public void mark(int locationId) {
+        if (!this.tickStarted) {
+            throw new RuntimeException("Cannot mark '" + ProfilerLocations.name(locationId)
+                + "' in the profiler if profiler tick hasn't started. Missing startTick()?");
+        } else {
+            long time = timeGetter.getAsLong();
+            long allocated = allocatedBytes();
+            this.nodes.record(this.nodes.child(this.currentNode, locationId), time - this.lastMark,
+                allocated - this.lastMarkAllocation);
+            if (this.recorder != null) {
+                this.recorder.push(locationId, this.lastMark);
+                this.recorder.pop(time);
+            }
+            this.lastMark = time;
+            this.lastMarkAllocation = allocated;
         }
     }
 
@@ -144,84 +258,45 @@ public final class LoggingProfiler implements Profiler {
             throw new RuntimeException(
                 "Tried to pop one too many times! Mismatched push() and pop()?");
         } else {
-            this.path.remove(this.path.size() - 1);
-
             long currentTime = timeGetter.getAsLong();
-            long startTime = this.timeList.remove(this.timeList.size() - 1);
+            long currentAllocation = allocatedBytes();
+            long startTime = this.timeList.removeLast();
+            long startAllocation = this.allocationList.removeLast();
             long timeSpan = currentTime - startTime;
 
-            LocatedInfo locatedInfo = this.getCurrentInfo();
-
-            locatedInfo.totalTime += timeSpan;
-            locatedInfo.visits++;
-            locatedInfo.maxTime = Math.max(locatedInfo.maxTime, timeSpan);
-            locatedInfo.minTime = Math.min(locatedInfo.minTime, timeSpan);
-            this.fullPath = this.path.isEmpty() ? "" : this.path.get(this.path.size() - 1);
-            this.currentInfo = null;
-        }
-    }
-
-    private LocatedInfo getCurrentInfo() {
-        if (this.currentInfo == null) {
-            this.currentInfo =
-                this.locationInfos.computeIfAbsent(this.fullPath, _k -> new LocatedInfo());
+            this.nodes.record(this.currentNode, timeSpan, currentAllocation - startAllocation);
+            this.lastMark = currentTime;
+            this.lastMarkAllocation = currentAllocation;
+            if (this.recorder != null) {
+                this.recorder.pop(currentTime);
+            }
+            this.currentNode = this.nodes.parent[this.currentNode];
         }
-        return this.currentInfo;
     }
 
     /**
      * Performance metrics for a given state of the profile stack.
      */
     public static class LocatedInfo {
-        long maxTime = Long.MIN_VALUE;
-        long minTime = Long.MAX_VALUE;
-        long totalTime;
-        long visits;
-    }
-
-    /**
-     * JSON Tree version of {@link LocatedInfo}
-     */
-    private static class LocatedInfoJSON {
-        long maxTime = Long.MIN_VALUE;
-        long minTime = Long.MAX_VALUE;
-        long totalTime;
-        long visits;
-        HashMap<String, LocatedInfoJSON> children;
-
-        void writeJSON(JsonGenerator generator, double timeDivisor, long parent_total,
-            long root_total) throws IOException {
-            generator.writeStartObject();
-            generator.writeNumberField("visitCount", visits);
-            generator.writeNumberField("totalTime", totalTime / timeDivisor);
-            if (parent_total > 0) {
-                double percent = (double) totalTime / (double) parent_total * 100.0;
-                generator.writeNumberField("percentOfParent", percent);
-            }
-            if (root_total > 0) {
-                double percent = (double) totalTime / (double) root_total * 100.0;
-                generator.writeNumberField("percentOfRoot", percent);
-            }
-            generator.writeNumberField("maxTime", maxTime / timeDivisor);
-            generator.writeNumberField("minTime", minTime / timeDivisor);
-            generator.writeNumberField("avgTime", totalTime / timeDivisor / visits);
-            generator.writeFieldName("children");
-            generator.writeStartObject();
-            for (var entry : children.entrySet()) {
-                generator.writeFieldName(entry.getKey());
-                entry.getValue().writeJSON(generator, timeDivisor, totalTime, root_total);
-            }
-            generator.writeEndObject();
-            generator.writeEndObject();
-        }
+        public long maxTime = Long.MIN_VALUE;
+        public long minTime = Long.MAX_VALUE;
+        public long totalTime;
+        public long visits;
+        public long p50Time;
+        public long p90Time;
+        public long p99Time;
+        public long p999Time;
+        public long allocatedBytes;
+        public long overruns;
+        public final Map<String, LocatedInfo> children = new LinkedHashMap<>();
     }
 
     @Override
     public void reset() {
-        this.locationInfos.clear();
-        this.fullPath = "";
-        this.path.clear();
+        this.nodes.clearMetrics();
+        this.currentNode = ProfileNodeTable.SENTINEL;
         this.timeList.clear();
+        this.allocationList.clear();
     }
 
 }
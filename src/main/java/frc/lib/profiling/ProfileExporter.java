@@ -0,0 +1,340 @@
+package frc.lib.profiling;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import edu.wpi.first.util.datalog.DataLogReader;
+import edu.wpi.first.util.datalog.DataLogRecord;
+import frc.lib.util.IntObjectHashMap;
+
+/**
+ * Offline converter from saved profiler output to formats standard tools understand.
+ *
+ * <ul>
+ * <li>{@link FlightRecorder} dumps become a Chrome Trace Event file ({@code .trace.json}, open in
+ * {@code chrome://tracing} or Perfetto) and folded stacks.</li>
+ * <li>{@link BinaryProfileLoggingFormat} and {@link JsonProfileLoggingFormat} profiles become
+ * folded stacks.</li>
+ * </ul>
+ *
+ * <p>
+ * Folded stacks ({@code .folded}) have one {@code root;parent;child selfTime} line per path, with
+ * self time in microseconds, as consumed by {@code flamegraph.pl} and speedscope.
+ *
+ * <p>
+ * Input is either a {@code .wpilog}, in which case every {@code profile/flightRecorder},
+ * {@code profile/binary} and {@code profile/json} entry is exported, or a raw dump of one of the
+ * above. Run with {@code ./gradlew profileExport -Pprofile=<file> [-PprofileOut=<dir>]}.
+ */
+public final class ProfileExporter {
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private ProfileExporter() {}
+
+    /**
+     * Entry point for the {@code profileExport} Gradle task.
+     *
+     * @param args input file, and optionally an output directory (defaults to the input's).
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: ProfileExporter <profile file or .wpilog> [output dir]");
+            System.exit(1);
+        }
+        File input = new File(args[0]);
+        File outDir = args.length > 1 ? new File(args[1]) : input.getAbsoluteFile().getParentFile();
+        outDir.mkdirs();
+        String baseName = input.getName().replaceFirst("\\.[^.]*$", "");
+
+        int exported = 0;
+        if (input.getName().endsWith(".wpilog")) {
+            DataLogReader reader = new DataLogReader(input.getPath());
+            if (!reader.isValid()) {
+                throw new IOException(input + " is not a valid WPILOG file.");
+            }
+            IntObjectHashMap<String> entries = new IntObjectHashMap<>();
+            for (DataLogRecord record : reader) {
+                if (record.isStart()) {
+                    var start = record.getStartData();
+                    if (start.name.endsWith("profile/flightRecorder")
+                        || start.name.endsWith("profile/binary")
+                        || start.name.endsWith("profile/json")) {
+                        entries.put(start.entry, start.name);
+                    }
+                } else if (!record.isControl() && entries.containsKey(record.getEntry())) {
+                    String name = baseName + "-" + record.getTimestamp();
+                    if (entries.get(record.getEntry()).endsWith("profile/json")) {
+                        exportProfile(record.getString().getBytes(StandardCharsets.UTF_8),
+                            outDir, name);
+                    } else {
+                        exportProfile(record.getRaw(), outDir, name);
+                    }
+                    exported++;
+                }
+            }
+        } else {
+            exportProfile(Files.readAllBytes(input.toPath()), outDir, baseName);
+            exported++;
+        }
+        System.out.println("Exported " + exported + " profile(s) to " + outDir);
+    }
+
+    /**
+     * Export a single profile, detecting its format from its first bytes.
+     */
+    private static void exportProfile(byte[] data, File outDir, String name) throws IOException {
+        int magic = data.length >= 4 ? new DataInputStream(new ByteArrayInputStream(data)).readInt()
+            : 0;
+        Map<String, Long> folded;
+        if (magic == FlightRecorder.MAGIC) {
+            List<Tick> ticks = readFlightRecording(data);
+            try (OutputStream out = new FileOutputStream(new File(outDir, name + ".trace.json"))) {
+                writeChromeTrace(ticks, out);
+            }
+            folded = foldTicks(ticks);
+        } else if (magic == BinaryProfileLoggingFormat.MAGIC) {
+            folded = foldBinaryProfile(data);
+        } else {
+            folded = foldJsonProfile(data);
+        }
+        try (PrintStream out = new PrintStream(new File(outDir, name + ".folded"), "UTF-8")) {
+            writeFoldedStacks(folded, out);
+        }
+    }
+
+    /**
+     * A single profile push recorded by a {@link FlightRecorder}, with times in milliseconds.
+     */
+    private static record Event(String name, int depth, double start, double duration) {
+    }
+
+    /**
+     * A single tick recorded by a {@link FlightRecorder}, with times in milliseconds.
+     */
+    private static record Tick(double start, double duration, List<Event> events) {
+    }
+
+    private static List<Tick> readFlightRecording(byte[] data) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        in.readInt();
+        in.readShort();
+        double timeDivisor = in.readDouble();
+        int nameCount = in.readInt();
+        IntObjectHashMap<String> names = new IntObjectHashMap<>(nameCount);
+        for (int i = 0; i < nameCount; i++) {
+            names.put((int) in.readShort(), in.readUTF());
+        }
+        List<Tick> ticks = new ArrayList<>();
+        int tickCount = in.readInt();
+        for (int t = 0; t < tickCount; t++) {
+            double tickStart = in.readLong() / timeDivisor;
+            double tickDuration = in.readInt() / timeDivisor;
+            int eventCount = in.readShort();
+            in.readShort();
+            List<Event> events = new ArrayList<>(eventCount);
+            for (int e = 0; e < eventCount; e++) {
+                String eventName = names.get((int) in.readShort());
+                int depth = in.readByte();
+                double start = tickStart + in.readInt() / timeDivisor;
+                double duration = in.readInt() / timeDivisor;
+                events.add(new Event(eventName, depth, start, duration));
+            }
+            ticks.add(new Tick(tickStart, tickDuration, events));
+        }
+        return ticks;
+    }
+
+    /**
+     * Write {@code ticks} as Chrome Trace Event "complete" events, one per push.
+     */
+    private static void writeChromeTrace(List<Tick> ticks, OutputStream outStream)
+        throws IOException {
+        JsonGenerator generator = JSON.createGenerator(outStream);
+        generator.writeStartObject();
+        generator.writeStringField("displayTimeUnit", "ms");
+        generator.writeFieldName("traceEvents");
+        generator.writeStartArray();
+        for (Tick tick : ticks) {
+            for (Event event : tick.events()) {
+                generator.writeStartObject();
+                generator.writeStringField("name", event.name());
+                generator.writeStringField("ph", "X");
+                generator.writeNumberField("ts", event.start() * 1000.0);
+                generator.writeNumberField("dur", event.duration() * 1000.0);
+                generator.writeNumberField("pid", 1);
+                generator.writeNumberField("tid", 1);
+                generator.writeEndObject();
+            }
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+        generator.flush();
+    }
+
+    private static Map<String, Long> foldTicks(List<Tick> ticks) {
+        Map<String, Long> folded = new LinkedHashMap<>();
+        for (Tick tick : ticks) {
+            String[] stack = new String[64];
+            double[] self = new double[64];
+            int depth = 0;
+            for (Event event : tick.events()) {
+                while (depth > event.depth()) {
+                    depth--;
+                    addFolded(folded, stack, depth, self[depth]);
+                }
+                if (depth > 0) {
+                    self[depth - 1] -= event.duration();
+                }
+                stack[depth] = depth == 0 ? event.name() : stack[depth - 1] + ";" + event.name();
+                self[depth] = event.duration();
+                depth++;
+            }
+            while (depth > 0) {
+                depth--;
+                addFolded(folded, stack, depth, self[depth]);
+            }
+        }
+        return folded;
+    }
+
+    private static void addFolded(Map<String, Long> folded, String[] stack, int depth,
+        double selfMillis) {
+        folded.merge(stack[depth], Math.max(Math.round(selfMillis * 1000.0), 0L), Long::sum);
+    }
+
+    /**
+     * Fold a {@link BinaryProfileLoggingFormat} profile.
+     *
+     * @return self time in microseconds per path, parents before their children.
+     */
+    static Map<String, Long> foldBinaryProfile(byte[] data) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        in.readInt();
+        int version = in.readByte();
+        double timeDivisor = in.readDouble();
+        // Version 2 added allocatedBytes after the percentiles, and version 3 overrunsCaused.
+        int skippedFields = 5 + version;
+        int nameCount = (int) readVarLong(in);
+        String[] names = new String[nameCount];
+        for (int i = 0; i < nameCount; i++) {
+            byte[] bytes = new byte[(int) readVarLong(in)];
+            in.readFully(bytes);
+            names[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        Map<String, Long> folded = new LinkedHashMap<>();
+        foldBinaryNode(in, names, null, timeDivisor, skippedFields, folded);
+        return folded;
+    }
+
+    /**
+     * Fold one binary profile node and its children.
+     *
+     * @return the node's total time.
+     */
+    private static long foldBinaryNode(DataInputStream in, String[] names, String parentPath,
+        double timeDivisor, int skippedFields, Map<String, Long> folded) throws IOException {
+        String name = names[(int) readVarLong(in)];
+        String path = parentPath == null ? name : parentPath + ";" + name;
+        int childCount = (int) readVarLong(in);
+        readVarLong(in);
+        long totalTime = readVarLong(in);
+        for (int i = 0; i < skippedFields; i++) {
+            readVarLong(in);
+        }
+        // Insert before children so parents come first in the output.
+        folded.put(path, 0L);
+        long childTime = 0;
+        for (int i = 0; i < childCount; i++) {
+            childTime += foldBinaryNode(in, names, path, timeDivisor, skippedFields, folded);
+        }
+        long selfMicros = Math.round((totalTime - childTime) / timeDivisor * 1000.0);
+        folded.put(path, Math.max(selfMicros, 0L));
+        return totalTime;
+    }
+
+    private static long readVarLong(InputStream in) throws IOException {
+        long value = 0;
+        int shift = 0;
+        while (true) {
+            int b = in.read();
+            if (b < 0) {
+                throw new IOException("Unexpected end of binary profile.");
+            }
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+            shift += 7;
+        }
+    }
+
+    /**
+     * Fold a {@link JsonProfileLoggingFormat} profile.
+     *
+     * @return self time in microseconds per path, parents before their children.
+     */
+    static Map<String, Long> foldJsonProfile(byte[] data) throws IOException {
+        Map<String, Long> folded = new LinkedHashMap<>();
+        try (JsonParser parser = JSON.createParser(data)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Unrecognized profile format.");
+            }
+            foldJsonNode(parser, "root", folded);
+        }
+        return folded;
+    }
+
+    /**
+     * Fold the JSON node whose {@code START_OBJECT} the parser is on. JSON profiles store times in
+     * milliseconds.
+     *
+     * @return the node's total time.
+     */
+    private static double foldJsonNode(JsonParser parser, String path, Map<String, Long> folded)
+        throws IOException {
+        double totalTime = 0;
+        double childTime = 0;
+        folded.put(path, 0L);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if (field.equals("totalTime")) {
+                totalTime = parser.getDoubleValue();
+            } else if (field.equals("children") && value == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String child = parser.getCurrentName();
+                    parser.nextToken();
+                    childTime += foldJsonNode(parser, path + ";" + child, folded);
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        folded.put(path, Math.max(Math.round((totalTime - childTime) * 1000.0), 0L));
+        return totalTime;
+    }
+
+    private static void writeFoldedStacks(Map<String, Long> folded, PrintStream out) {
+        for (var entry : folded.entrySet()) {
+            if (entry.getValue() > 0) {
+                out.println(entry.getKey() + " " + entry.getValue());
+            }
+        }
+    }
+}
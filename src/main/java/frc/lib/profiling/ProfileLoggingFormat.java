@@ -1,10 +1,20 @@
 package frc.lib.profiling;
 
+import java.io.IOException;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import frc.lib.profiling.LoggingProfiler.LocatedInfo;
 
 /**
  * Describes how a profile is written to a file.
+ *
+ * <p>
+ * {@link LoggingProfiler} calls {@link #begin(OutputStream) begin}, then {@link #write(String,
+ * LocatedInfo, double, OutputStream) write} with the root of the profile tree, then
+ * {@link #end(OutputStream) end}, all from its writer thread. The resulting bytes are logged under
+ * {@link #key()}.
  */
 public interface ProfileLoggingFormat {
 
@@ -16,16 +26,40 @@ public interface ProfileLoggingFormat {
     /**
      * Write a profile to the file specified in {@code outStream}.
      */
-    void write(String name, LocatedInfo info, double timeDivisor, OutputStream outStream);
+    void write(String name, LocatedInfo info, double timeDivisor, OutputStream outStream)
+        throws IOException;
 
     /**
      * Write information before seeing any profiles.
      */
-    void begin(OutputStream outputStream);
+    void begin(OutputStream outputStream) throws IOException;
 
     /**
      * Write information after seeing all profiles.
      */
-    void end(OutputStream outputStream);
+    void end(OutputStream outputStream) throws IOException;
+
+    /**
+     * The AdvantageKit key the output of this format is logged under.
+     */
+    String key();
+
+    /**
+     * Whether the output is binary and should be logged as raw bytes rather than a string.
+     */
+    default boolean isBinary() {
+        return false;
+    }
+
+    /**
+     * Get the children of {@code info} ordered by {@link #compare(String, LocatedInfo, String,
+     * LocatedInfo) compare}.
+     */
+    default List<Map.Entry<String, LocatedInfo>> sortedChildren(LocatedInfo info) {
+        List<Map.Entry<String, LocatedInfo>> children = new ArrayList<>(info.children.entrySet());
+        children.sort((left, right) -> compare(left.getKey(), left.getValue(), right.getKey(),
+            right.getValue()));
+        return children;
+    }
 
 }
@@ -0,0 +1,250 @@
+package frc.lib.profiling;
+
+import java.util.Arrays;
+
+/**
+ * The profile call tree stored as parallel primitive arrays indexed by node ID. Each node is a
+ * unique path through the profile stack, identified by its parent node and the interned location
+ * (see {@link ProfilerLocations}) pushed on top of it.
+ *
+ * <p>
+ * Node {@link #SENTINEL 0} is an unnamed sentinel whose children are the roots of the tree. Nodes
+ * are never removed, so once every path has been visited, lookups and updates don't allocate.
+ *
+ * <p>
+ * Each node also owns a {@link LogHistogram} of its visit times, stored at
+ * {@code node * LogHistogram.BUCKET_COUNT} in {@link #histograms}, and a count of the bytes
+ * allocated by the profiled thread during its visits.
+ *
+ * <p>
+ * Alongside the aggregated metrics, {@link #tickTime} holds the time recorded in each node since
+ * the last {@link #clearTick()}, which is used to find the node that caused a tick to overrun.
+ */
+final class ProfileNodeTable {
+
+    /** Marks the absence of a node in {@link #firstChild} and {@link #nextSibling}. */
+    static final int NONE = -1;
+
+    /** Parent of all root nodes. Holds no metrics of its own. */
+    static final int SENTINEL = 0;
+
+    private static final int DEFAULT_INITIAL_CAPACITY = 64;
+
+    int size;
+    int[] location;
+    int[] parent;
+    int[] firstChild;
+    int[] nextSibling;
+    long[] maxTime;
+    long[] minTime;
+    long[] totalTime;
+    long[] visits;
+    long[] allocatedBytes;
+    long[] overruns;
+    long[] tickTime;
+    int[] histograms;
+
+    ProfileNodeTable() {
+        this(DEFAULT_INITIAL_CAPACITY);
+    }
+
+    ProfileNodeTable(int initialCapacity) {
+        int capacity = Math.max(initialCapacity, 1);
+        location = new int[capacity];
+        parent = new int[capacity];
+        firstChild = new int[capacity];
+        nextSibling = new int[capacity];
+        maxTime = new long[capacity];
+        minTime = new long[capacity];
+        totalTime = new long[capacity];
+        visits = new long[capacity];
+        allocatedBytes = new long[capacity];
+        overruns = new long[capacity];
+        tickTime = new long[capacity];
+        histograms = new int[capacity * LogHistogram.BUCKET_COUNT];
+        size = 0;
+        addNode(NONE, NONE);
+    }
+
+    /**
+     * Find the child of {@code parentNode} for {@code locationId}, creating it on first use.
+     */
+    int child(int parentNode, int locationId) {
+        for (int node = firstChild[parentNode]; node != NONE; node = nextSibling[node]) {
+            if (location[node] == locationId) {
+                return node;
+            }
+        }
+        return addNode(parentNode, locationId);
+    }
+
+    /**
+     * Find the child of {@code parentNode} for {@code locationId} without creating it.
+     *
+     * @return the child node, or {@link #NONE} if it doesn't exist.
+     */
+    int findChild(int parentNode, int locationId) {
+        for (int node = firstChild[parentNode]; node != NONE; node = nextSibling[node]) {
+            if (location[node] == locationId) {
+                return node;
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * Add one visit of length {@code timeSpan} to {@code node}, during which {@code allocated}
+     * bytes were allocated.
+     */
+    void record(int node, long timeSpan, long allocated) {
+        allocatedBytes[node] += allocated;
+        tickTime[node] += timeSpan;
+        totalTime[node] += timeSpan;
+        visits[node]++;
+        if (timeSpan > maxTime[node]) {
+            maxTime[node] = timeSpan;
+        }
+        if (timeSpan < minTime[node]) {
+            minTime[node] = timeSpan;
+        }
+        histograms[node * LogHistogram.BUCKET_COUNT + LogHistogram.bucket(timeSpan)]++;
+    }
+
+    /**
+     * Add the metrics of {@code otherNode} in {@code other} to {@code node}, as if its visits had
+     * been recorded here.
+     */
+    void merge(int node, ProfileNodeTable other, int otherNode) {
+        if (other.visits[otherNode] == 0) {
+            return;
+        }
+        totalTime[node] += other.totalTime[otherNode];
+        visits[node] += other.visits[otherNode];
+        allocatedBytes[node] += other.allocatedBytes[otherNode];
+        overruns[node] += other.overruns[otherNode];
+        maxTime[node] = Math.max(maxTime[node], other.maxTime[otherNode]);
+        minTime[node] = Math.min(minTime[node], other.minTime[otherNode]);
+        int offset = node * LogHistogram.BUCKET_COUNT;
+        int otherOffset = otherNode * LogHistogram.BUCKET_COUNT;
+        for (int i = 0; i < LogHistogram.BUCKET_COUNT; i++) {
+            histograms[offset + i] += other.histograms[otherOffset + i];
+        }
+    }
+
+    /**
+     * Merge {@code otherNode} in {@code other} and all of its descendants into the matching child
+     * of {@code parentNode}, creating nodes as needed.
+     *
+     * @return the node {@code otherNode} was merged into.
+     */
+    int mergeTree(int parentNode, ProfileNodeTable other, int otherNode) {
+        int node = child(parentNode, other.location[otherNode]);
+        merge(node, other, otherNode);
+        for (int otherChild = other.firstChild[otherNode]; otherChild != NONE; otherChild =
+            other.nextSibling[otherChild]) {
+            mergeTree(node, other, otherChild);
+        }
+        return node;
+    }
+
+    /**
+     * Estimate the visit time of {@code node} at {@code quantile} (between 0 and 1).
+     */
+    long percentile(int node, double quantile) {
+        return LogHistogram.valueAt(histograms, node * LogHistogram.BUCKET_COUNT, visits[node],
+            quantile, minTime[node], maxTime[node]);
+    }
+
+    /**
+     * How much longer {@code node} took since the last {@link #clearTick()} than it does on
+     * average.
+     */
+    long excessTime(int node) {
+        return visits[node] == 0 ? 0 : tickTime[node] - totalTime[node] / visits[node];
+    }
+
+    /**
+     * Find the node responsible for the excess time of {@code node} in the current tick: starting
+     * at {@code node}, keep descending into the child with the most excess time as long as that
+     * child accounts for at least half of its parent's. If no child does, the parent's own
+     * (unprofiled) code is the cause.
+     */
+    int overrunCause(int node) {
+        int cause = node;
+        while (true) {
+            int worst = NONE;
+            for (int child = firstChild[cause]; child != NONE; child = nextSibling[child]) {
+                if (tickTime[child] > 0
+                    && (worst == NONE || excessTime(child) > excessTime(worst))) {
+                    worst = child;
+                }
+            }
+            if (worst == NONE || excessTime(worst) * 2 < excessTime(cause)) {
+                return cause;
+            }
+            cause = worst;
+        }
+    }
+
+    /**
+     * Start timing a new tick for {@link #tickTime}.
+     */
+    void clearTick() {
+        Arrays.fill(tickTime, 0, size, 0L);
+    }
+
+    /**
+     * Reset the metrics of every node while keeping the tree structure, so subsequent ticks don't
+     * need to rebuild it.
+     */
+    void clearMetrics() {
+        Arrays.fill(maxTime, 0, size, Long.MIN_VALUE);
+        Arrays.fill(minTime, 0, size, Long.MAX_VALUE);
+        Arrays.fill(totalTime, 0, size, 0L);
+        Arrays.fill(visits, 0, size, 0L);
+        Arrays.fill(allocatedBytes, 0, size, 0L);
+        Arrays.fill(overruns, 0, size, 0L);
+        Arrays.fill(histograms, 0, size * LogHistogram.BUCKET_COUNT, 0);
+    }
+
+    private int addNode(int parentNode, int locationId) {
+        if (size == location.length) {
+            grow(size + (size >> 1) + 1);
+        }
+        int node = size++;
+        location[node] = locationId;
+        parent[node] = parentNode;
+        firstChild[node] = NONE;
+        maxTime[node] = Long.MIN_VALUE;
+        minTime[node] = Long.MAX_VALUE;
+        totalTime[node] = 0;
+        visits[node] = 0;
+        allocatedBytes[node] = 0;
+        overruns[node] = 0;
+        tickTime[node] = 0;
+        Arrays.fill(histograms, node * LogHistogram.BUCKET_COUNT,
+            (node + 1) * LogHistogram.BUCKET_COUNT, 0);
+        if (parentNode != NONE) {
+            nextSibling[node] = firstChild[parentNode];
+            firstChild[parentNode] = node;
+        } else {
+            nextSibling[node] = NONE;
+        }
+        return node;
+    }
+
+    private void grow(int capacity) {
+        location = Arrays.copyOf(location, capacity);
+        parent = Arrays.copyOf(parent, capacity);
+        firstChild = Arrays.copyOf(firstChild, capacity);
+        nextSibling = Arrays.copyOf(nextSibling, capacity);
+        maxTime = Arrays.copyOf(maxTime, capacity);
+        minTime = Arrays.copyOf(minTime, capacity);
+        totalTime = Arrays.copyOf(totalTime, capacity);
+        visits = Arrays.copyOf(visits, capacity);
+        allocatedBytes = Arrays.copyOf(allocatedBytes, capacity);
+        overruns = Arrays.copyOf(overruns, capacity);
+        tickTime = Arrays.copyOf(tickTime, capacity);
+        histograms = Arrays.copyOf(histograms, capacity * LogHistogram.BUCKET_COUNT);
+    }
+}
@@ -0,0 +1,157 @@
+package frc.lib.profiling;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+import org.littletonrobotics.junction.Logger;
+import frc.lib.profiling.LoggingProfiler.LocatedInfo;
+
+/**
+ * Low-priority background thread that encodes full {@link ProfileNodeTable}s with each
+ * {@link ProfileLoggingFormat}, shared by the profilers that keep a node table.
+ *
+ * <p>
+ * Tables are double-buffered: {@link #submit(ProfileNodeTable) submit} hands over the full table
+ * and returns a clean one to keep recording into, and the writer clears the table once it is
+ * encoded so it can be handed back on the next submit. Results are only logged by
+ * {@link #publishCompleted()}, which must be called from the main thread.
+ */
+final class ProfileWriter {
+    private static final int ROOT = Profiler.intern("root");
+
+    private final BlockingQueue<ProfileNodeTable> pending = new ArrayBlockingQueue<>(1);
+    private final AtomicReference<ProfileNodeTable> spare =
+        new AtomicReference<>(new ProfileNodeTable());
+    private final Thread thread;
+    private final LongSupplier timeGetter;
+    private final double timeDivisor;
+    private final ProfileLoggingFormat[] formats;
+    private volatile Object[] completedOutputs;
+    private volatile double completedWriteTime;
+    private volatile long droppedSaves;
+
+    ProfileWriter(LongSupplier timeGetter, double timeDivisor, ProfileLoggingFormat[] formats) {
+        this.timeGetter = timeGetter;
+        this.timeDivisor = timeDivisor;
+        this.formats = formats;
+        this.thread = new Thread(this::run, "ProfileWriter");
+        this.thread.setDaemon(true);
+        this.thread.setPriority(Thread.MIN_PRIORITY);
+        this.thread.start();
+    }
+
+    /**
+     * Hand {@code full} to the writer thread. Must only be called from one thread at a time.
+     *
+     * @return the table to record into from now on. This is {@code full} itself if the writer
+     *         hasn't finished the previous table, in which case the save is counted as dropped.
+     */
+    ProfileNodeTable submit(ProfileNodeTable full) {
+        ProfileNodeTable free = this.spare.getAndSet(null);
+        if (free == null) {
+            // The writer hasn't finished the last snapshot. Keep accumulating into this one.
+            this.droppedSaves++;
+            return full;
+        }
+        this.pending.offer(full);
+        return free;
+    }
+
+    /**
+     * Number of saves skipped because the writer was still busy.
+     */
+    long droppedSaves() {
+        return this.droppedSaves;
+    }
+
+    /**
+     * Publish the last profile finished by the writer thread, if any. AdvantageKit outputs must be
+     * recorded from the main thread, so the writer only hands its results back.
+     */
+    void publishCompleted() {
+        Object[] outputs = this.completedOutputs;
+        if (outputs != null) {
+            this.completedOutputs = null;
+            for (int i = 0; i < formats.length; i++) {
+                if (outputs[i] instanceof byte[] bytes) {
+                    Logger.recordOutput(formats[i].key(), bytes);
+                } else if (outputs[i] instanceof String string) {
+                    Logger.recordOutput(formats[i].key(), string);
+                }
+            }
+            Logger.recordOutput("profile/timeToWrite", this.completedWriteTime);
+        }
+    }
+
+    private void run() {
+        while (true) {
+            ProfileNodeTable table;
+            try {
+                table = this.pending.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            long start = timeGetter.getAsLong();
+            Object[] outputs = write(table);
+            table.clearMetrics();
+            long end = timeGetter.getAsLong();
+            if (outputs != null) {
+                this.completedWriteTime = (end - start) / timeDivisor;
+                this.completedOutputs = outputs;
+            }
+            this.spare.set(table);
+        }
+    }
+
+    /**
+     * Encode {@code table} with every format. Binary formats produce a {@code byte[]}, others a
+     * {@code String}.
+     */
+    Object[] write(ProfileNodeTable table) {
+        int root = table.findChild(ProfileNodeTable.SENTINEL, ROOT);
+        if (root == ProfileNodeTable.NONE || table.visits[root] == 0) {
+            return null;
+        }
+        LocatedInfo rootInfo = snapshot(table, root);
+        Object[] outputs = new Object[formats.length];
+        for (int i = 0; i < formats.length; i++) {
+            ProfileLoggingFormat format = formats[i];
+            try {
+                ByteArrayOutputStream outStream = new ByteArrayOutputStream();
+                format.begin(outStream);
+                format.write("root", rootInfo, timeDivisor, outStream);
+                format.end(outStream);
+                outputs[i] = format.isBinary() ? outStream.toByteArray() : outStream.toString();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        return outputs;
+    }
+
+    private static LocatedInfo snapshot(ProfileNodeTable table, int node) {
+        LocatedInfo info = new LocatedInfo();
+        info.visits = table.visits[node];
+        info.totalTime = table.totalTime[node];
+        info.maxTime = table.maxTime[node];
+        info.minTime = table.minTime[node];
+        info.allocatedBytes = table.allocatedBytes[node];
+        info.overruns = table.overruns[node];
+        info.p50Time = table.percentile(node, 0.5);
+        info.p90Time = table.percentile(node, 0.9);
+        info.p99Time = table.percentile(node, 0.99);
+        info.p999Time = table.percentile(node, 0.999);
+        for (int child = table.firstChild[node]; child != ProfileNodeTable.NONE; child =
+            table.nextSibling[child]) {
+            if (table.visits[child] == 0) {
+                continue;
+            }
+            info.children.put(ProfilerLocations.name(table.location[child]),
+                snapshot(table, child));
+        }
+        return info;
+    }
+}
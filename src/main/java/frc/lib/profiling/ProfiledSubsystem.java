@@ -0,0 +1,36 @@
+package frc.lib.profiling;
+
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import edu.wpi.first.wpilibj2.command.SubsystemBase;
+
+/**
+ * A {@link SubsystemBase} whose periodic work is timed into the profiler installed with
+ * {@link SchedulerInstrumentation#install(Profiler)}, under {@code <name>.periodic()}.
+ *
+ * <p>
+ * Subclasses override {@link #profiledPeriodic()} instead of {@link #periodic()}.
+ */
+public abstract class ProfiledSubsystem extends SubsystemBase {
+
+    private int periodicLocation = Profiler.intern(getName() + ".periodic()");
+
+    @Override
+    public void setName(String name) {
+        super.setName(name);
+        periodicLocation = Profiler.intern(name + ".periodic()");
+    }
+
+    @Override
+    public final void periodic() {
+        Profiler profiler = SchedulerInstrumentation.profiler();
+        profiler.push(periodicLocation);
+        profiledPeriodic();
+        profiler.pop();
+    }
+
+    /**
+     * This method is called periodically by the {@link CommandScheduler}, in place of
+     * {@link #periodic()}.
+     */
+    protected void profiledPeriodic() {}
+}
@@ -34,11 +34,26 @@ package frc.lib.profiling;
  * <p>
  * A call to {@link #save() profiler.save()} would output the performance metrics of these sections
  * in the case of a {@link LoggingProfiler}.
+ *
+ * <p>
+ * Locations may also be {@link #intern(String) interned} ahead of time and pushed by ID, which
+ * skips the name lookup on every call:
+ *
+ * <pre>
+ * {@code
+ * private static final int HELLO = Profiler.intern("Hello");
+ * ...
+ * profiler.push(HELLO);
+ * }
+ * </pre>
  */
-public sealed interface Profiler permits EmptyProfiler, LoggingProfiler, ValidatingProfiler {
+public sealed interface Profiler permits EmptyProfiler, LoggingProfiler, SamplingProfiler,
+    ThreadedProfiler, ValidatingProfiler {
     /**
      * Called at the top of the main loop. Indicates the profiler is at "root" and records the start
-     * time. Within the main loop, no meaningful work should occur before this call.
+     * time. Within the main loop, no meaningful work should occur before this call. Time spent
+     * waiting for the next loop should fall between {@link #endTick() endTick} and this call, not
+     * inside a tick.
      *
      * @throws RuntimeException if called twice without a call to {@link #endTick() endTick} in
      *         between.
@@ -63,6 +78,14 @@ public sealed interface Profiler permits EmptyProfiler, LoggingProfiler, Validat
      */
     void push(String location);
 
+    /**
+     * The profile stack is pushed with the location interned as {@code locationId} as its top.
+     * Equivalent to {@link #push(String) push} with the interned name.
+     *
+     * @throws RuntimeException if {@link #startTick() startTick} hasn't been called yet.
+     */
+    void push(int locationId);
+
     /**
      * The profile stack is popped. Must be preceded (at some point) by a call to
      * {@link #push(String) push}.
@@ -72,6 +95,16 @@ public sealed interface Profiler permits EmptyProfiler, LoggingProfiler, Validat
      */
     void pop();
 
+    /**
+     * Record the time since the most recent {@link #push(String) push}, {@link #pop() pop} or mark
+     * as one visit to the child {@code locationId} of the top of the profile stack, without
+     * changing the stack. Used to time code that can only be observed after it has run, such as
+     * commands reporting through {@code CommandScheduler} callbacks.
+     *
+     * @throws RuntimeException if {@link #startTick() startTick} hasn't been called yet.
+     */
+    void mark(int locationId);
+
     /**
      * The top of the profile stack is replaced with {@code location}. This is equivalent to a call
      * to {@link #pop() pop} followed immediately by a call to {@link #push(String) push}.
@@ -83,6 +116,25 @@ public sealed interface Profiler permits EmptyProfiler, LoggingProfiler, Validat
         push(location);
     }
 
+    /**
+     * The top of the profile stack is replaced with the location interned as {@code locationId}.
+     *
+     * @throws RuntimeException if the profile stack is empty.
+     */
+    default void swap(int locationId) {
+        pop();
+        push(locationId);
+    }
+
+    /**
+     * Get a process-wide integer ID for {@code location}, usable with {@link #push(int)} and
+     * {@link #swap(int)} on any profiler. IDs are stable for the lifetime of the program, so they
+     * are best stored in {@code static final} fields.
+     */
+    static int intern(String location) {
+        return ProfilerLocations.intern(location);
+    }
+
     /**
      * Write profile data to a file.
      */
@@ -0,0 +1,61 @@
+package frc.lib.profiling;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide table mapping profile location names to small integer IDs. IDs are shared by every
+ * {@link Profiler} implementation, so callers may intern their locations once (e.g. in a static
+ * initializer) before the active profiler has been chosen.
+ */
+final class ProfilerLocations {
+
+    private static final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private static volatile String[] names = new String[64];
+    private static int count = 0;
+
+    private ProfilerLocations() {}
+
+    /**
+     * Get the ID for {@code location}, assigning a new one if it has not been seen before. Lookups
+     * of existing locations do not allocate.
+     */
+    static int intern(String location) {
+        Integer id = ids.get(location);
+        if (id != null) {
+            return id;
+        }
+        return internSlow(location);
+    }
+
+    private static synchronized int internSlow(String location) {
+        Integer id = ids.get(location);
+        if (id != null) {
+            return id;
+        }
+        int newId = count++;
+        String[] current = names;
+        if (newId >= current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+        }
+        current[newId] = location;
+        names = current;
+        // Publishing through the map guarantees readers of the ID also see the name.
+        ids.put(location, newId);
+        return newId;
+    }
+
+    /**
+     * Get the name that was interned as {@code id}.
+     */
+    static String name(int id) {
+        return names[id];
+    }
+
+    /**
+     * Number of locations interned so far. Valid IDs are {@code [0, count())}.
+     */
+    static synchronized int count() {
+        return count;
+    }
+}
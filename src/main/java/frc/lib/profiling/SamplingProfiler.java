@@ -0,0 +1,241 @@
+package frc.lib.profiling;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.locks.LockSupport;
+import org.littletonrobotics.junction.Logger;
+
+/**
+ * This profiler periodically samples the stack of the thread that created it from a high-priority
+ * background thread, rather than relying on {@link #push(String) push} and {@link #pop() pop}.
+ * Every method running on that thread is covered, including vendor library calls, without any code
+ * changes. Push, pop and mark calls are accepted but ignored.
+ *
+ * <p>
+ * Samples are aggregated into the same tree as {@link LoggingProfiler}: {@code root} is the tick,
+ * and each node below it is a stack frame ({@code class.method}), starting from the outermost.
+ * Each sample counts as one sample period of time in every frame on the stack. A node's metrics are
+ * accumulated per tick, so {@code visits} is the number of ticks the frame was seen in and the
+ * percentiles describe the estimated time spent in the frame per tick. Sampling only happens
+ * between {@link #startTick() startTick} and {@link #endTick() endTick}.
+ *
+ * <p>
+ * Times are measured with {@link System#nanoTime()} and written in milliseconds. Estimates are only
+ * as fine as the sample rate, and a sampler that can't keep up (e.g. when every core is busy)
+ * under-reports total time, though not the split between frames. Each sample briefly pauses the
+ * profiled thread while its stack is captured. Profiles are written by a {@link ProfileWriter}
+ * like {@link LoggingProfiler}'s.
+ *
+ * <p>
+ * Each method's location ID is cached by class and method name, so repeated frames are not
+ * re-interned and every line of a method shares one location, as it would in a pushed profile. At
+ * most {@value #MAX_FRAMES} distinct methods get their own location. Later ones are all counted
+ * under a single {@code <other frames>} location, which keeps the process-wide location table small
+ * enough for the {@link FlightRecorder}'s 16-bit IDs.
+ */
+public final class SamplingProfiler implements Profiler {
+    private static final int ROOT = Profiler.intern("root");
+    private static final int OTHER_FRAMES = Profiler.intern("<other frames>");
+    private static final int DEFAULT_MAX_DEPTH = 128;
+    private static final int MAX_FRAMES = 4096;
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    private final Thread target;
+    private final Thread sampler;
+    private final ProfileWriter writer;
+    private final long periodNanos;
+    private final int maxDepth;
+
+    // Written by the profiled thread, read by the sampler.
+    private volatile long tick;
+    private volatile boolean tickStarted;
+    private volatile boolean saveRequested;
+    private volatile boolean resetRequested;
+
+    // Owned by the sampler thread.
+    private ProfileNodeTable nodes = new ProfileNodeTable();
+    private long sampledTick;
+    private long[] tickTime = new long[64];
+    private int[] touched = new int[64];
+    private int touchedCount;
+    private long samples;
+    /** Location IDs by class name, then method name. */
+    private final HashMap<String, HashMap<String, Integer>> frameIds = new HashMap<>();
+    private int frameCount;
+    private volatile long lastSamples;
+
+    /**
+     * Sample the calling thread at {@code sampleRate} Hz, logging profiles as JSON.
+     *
+     * @param sampleRate samples per second.
+     */
+    public SamplingProfiler(double sampleRate) {
+        this(sampleRate, DEFAULT_MAX_DEPTH, new JsonProfileLoggingFormat());
+    }
+
+    /**
+     * Sample the calling thread at {@code sampleRate} Hz.
+     *
+     * @param sampleRate samples per second.
+     * @param maxDepth number of frames kept from each sample, counted from the outermost.
+     * @param formats the formats each saved profile is logged in.
+     */
+    public SamplingProfiler(double sampleRate, int maxDepth, ProfileLoggingFormat... formats) {
+        if (sampleRate <= 0 || maxDepth <= 0) {
+            throw new IllegalArgumentException(
+                "Sample rate and max depth must be positive, got " + sampleRate + " and "
+                    + maxDepth + ".");
+        }
+        this.target = Thread.currentThread();
+        this.periodNanos = (long) (1e9 / sampleRate);
+        this.maxDepth = maxDepth;
+        this.writer = new ProfileWriter(System::nanoTime, NANOS_PER_MILLI, formats);
+        this.sampler = new Thread(this::runSampler, "ProfileSampler");
+        this.sampler.setDaemon(true);
+        this.sampler.setPriority(Thread.MAX_PRIORITY);
+        this.sampler.start();
+    }
+
+    @Override
+    public void save() {
+        if (this.tickStarted) {
+            throw new RuntimeException("Cannot save the profiler in the middle of a tick.");
+        }
+        this.saveRequested = true;
+        Logger.recordOutput("profile/droppedSaves", this.writer.droppedSaves());
+        Logger.recordOutput("profile/samples", this.lastSamples);
+    }
+
+    @Override
+    public void startTick() {
+        if (this.tickStarted) {
+            throw new RuntimeException("Profiler tick already started. Missing endTick()?");
+        }
+        this.tick++;
+        this.tickStarted = true;
+    }
+
+    @Override
+    public void endTick() {
+        if (!this.tickStarted) {
+            throw new RuntimeException("Profiler tick already ended. Missing startTick()?");
+        }
+        this.tickStarted = false;
+        this.writer.publishCompleted();
+    }
+
+    @Override
+    public void push(String location) {
+
+    }
+
+    @Override
+    public void push(int locationId) {
+
+    }
+
+    @Override
+    public void mark(int locationId) {
+
+    }
+
+    @Override
+    public void pop() {
+
+    }
+
+    @Override
+    public void reset() {
+        this.resetRequested = true;
+    }
+
+    private void runSampler() {
+        while (true) {
+            LockSupport.parkNanos(periodNanos);
+            if (resetRequested) {
+                resetRequested = false;
+                flushTick();
+                nodes.clearMetrics();
+            }
+            if (saveRequested) {
+                saveRequested = false;
+                flushTick();
+                nodes = writer.submit(nodes);
+                lastSamples = samples;
+                samples = 0;
+            }
+            long currentTick = tick;
+            if (currentTick != sampledTick) {
+                flushTick();
+                sampledTick = currentTick;
+            }
+            if (!tickStarted) {
+                continue;
+            }
+            StackTraceElement[] stack = target.getStackTrace();
+            if (tick != currentTick) {
+                // The tick ended while the stack was being captured.
+                continue;
+            }
+            samples++;
+
+            int node = nodes.child(ProfileNodeTable.SENTINEL, ROOT);
+            addSample(node);
+            int outermost = stack.length - 1;
+            for (int i = outermost; i >= Math.max(0, stack.length - maxDepth); i--) {
+                node = nodes.child(node, frameId(stack[i]));
+                addSample(node);
+            }
+        }
+    }
+
+    /**
+     * Get the location ID of a frame's method, interning {@code class.method} the first time the
+     * method is seen.
+     */
+    private int frameId(StackTraceElement frame) {
+        HashMap<String, Integer> methods = frameIds.get(frame.getClassName());
+        if (methods != null) {
+            Integer id = methods.get(frame.getMethodName());
+            if (id != null) {
+                return id;
+            }
+        }
+        if (frameCount >= MAX_FRAMES) {
+            return OTHER_FRAMES;
+        }
+        if (methods == null) {
+            methods = new HashMap<>();
+            frameIds.put(frame.getClassName(), methods);
+        }
+        int newId = Profiler.intern(frame.getClassName() + "." + frame.getMethodName());
+        methods.put(frame.getMethodName(), newId);
+        frameCount++;
+        return newId;
+    }
+
+    private void addSample(int node) {
+        if (node >= tickTime.length) {
+            tickTime = Arrays.copyOf(tickTime, Math.max(node + 1, tickTime.length * 2));
+        }
+        if (tickTime[node] == 0) {
+            if (touchedCount == touched.length) {
+                touched = Arrays.copyOf(touched, touched.length * 2);
+            }
+            touched[touchedCount++] = node;
+        }
+        tickTime[node] += periodNanos;
+    }
+
+    /**
+     * Record the time each frame was seen for during the sampled tick as one visit.
+     */
+    private void flushTick() {
+        for (int i = 0; i < touchedCount; i++) {
+            int node = touched[i];
+            nodes.record(node, tickTime[node], 0);
+            tickTime[node] = 0;
+        }
+        touchedCount = 0;
+    }
+}
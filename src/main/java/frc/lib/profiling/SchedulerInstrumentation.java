@@ -0,0 +1,75 @@
+package frc.lib.profiling;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+
+/**
+ * Times every command run by the {@link CommandScheduler} into a {@link Profiler} without any
+ * push/pop calls in the commands themselves. Subsystems are timed by extending
+ * {@link ProfiledSubsystem}.
+ *
+ * <p>
+ * The scheduler only reports a command after its {@code initialize}, {@code execute} or
+ * {@code end} has run, so each report is recorded as a {@link Profiler#mark(int) mark}: the time
+ * since the previous push, pop or mark. Inside {@code CommandScheduler.run()} that is the command's
+ * own work plus scheduler bookkeeping; the first command after the subsystems also picks up
+ * trigger polling. Nodes are named {@code <command>.initialize()}, {@code <command>.execute()} and
+ * {@code <command>.end()} under whatever is on top of the profile stack when the scheduler runs.
+ *
+ * <p>
+ * Installing an {@link EmptyProfiler} registers no callbacks, so the only cost left is the no-op
+ * push/pop in {@link ProfiledSubsystem}.
+ */
+public final class SchedulerInstrumentation {
+
+    private static final int INITIALIZE = 0;
+    private static final int EXECUTE = 1;
+    private static final int END = 2;
+
+    private static Profiler profiler = EmptyProfiler.INSTANCE;
+    private static boolean callbacksRegistered = false;
+    /** Interned node IDs per command, indexed by {@link #INITIALIZE}, {@link #EXECUTE}, ... */
+    private static final Map<Command, int[]> commandLocations = new WeakHashMap<>();
+
+    private SchedulerInstrumentation() {}
+
+    /**
+     * Time subsystems and scheduled commands into {@code profiler}. Call after any commands
+     * scheduled outside of a profiler tick (e.g. during robot construction) have been scheduled.
+     */
+    public static void install(Profiler profiler) {
+        SchedulerInstrumentation.profiler = profiler;
+        if (profiler == EmptyProfiler.INSTANCE || callbacksRegistered) {
+            return;
+        }
+        callbacksRegistered = true;
+        CommandScheduler scheduler = CommandScheduler.getInstance();
+        scheduler.onCommandInitialize(command -> mark(command, INITIALIZE));
+        scheduler.onCommandExecute(command -> mark(command, EXECUTE));
+        scheduler.onCommandFinish(command -> mark(command, END));
+        scheduler.onCommandInterrupt(command -> mark(command, END));
+    }
+
+    /**
+     * The profiler subsystems and commands are currently timed into.
+     */
+    public static Profiler profiler() {
+        return profiler;
+    }
+
+    private static void mark(Command command, int phase) {
+        if (profiler == EmptyProfiler.INSTANCE) {
+            return;
+        }
+        int[] locations = commandLocations.get(command);
+        if (locations == null) {
+            String name = command.getName();
+            locations = new int[] {Profiler.intern(name + ".initialize()"),
+                Profiler.intern(name + ".execute()"), Profiler.intern(name + ".end()")};
+            commandLocations.put(command, locations);
+        }
+        profiler.mark(locations[phase]);
+    }
+}
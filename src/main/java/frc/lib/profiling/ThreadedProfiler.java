@@ -0,0 +1,273 @@
+package frc.lib.profiling;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+import org.littletonrobotics.junction.Logger;
+import frc.lib.util.LongArrayList;
+
+/**
+ * A {@link LoggingProfiler} variant that may be used from several threads at once, e.g. the main
+ * loop plus a high-rate odometry {@code Notifier} or a vision thread.
+ *
+ * <p>
+ * Every thread gets its own profile stack and {@link ProfileNodeTable}, touched only by that
+ * thread, so pushes and pops take no locks. The thread that created the profiler is the main
+ * thread: it owns the {@code root} node and is the only one that may call {@link #startTick()
+ * startTick}, {@link #endTick() endTick}, {@link #save() save} and {@link #reset() reset}. Other
+ * threads just push and pop; each time their profile stack empties counts as the end of one of
+ * their ticks.
+ *
+ * <p>
+ * On {@link #save() save}, each other thread is asked to hand over its table the next time its
+ * stack empties, and the tables handed over since the previous save are merged under
+ * {@code root} as a {@code <thread name> (thread)} node. Other threads therefore show up one save
+ * late, and their times overlap the main thread's rather than adding up to {@code root}.
+ */
+public final class ThreadedProfiler implements Profiler {
+    private static final int ROOT = Profiler.intern("root");
+
+    private final Thread mainThread;
+    private final ThreadState main;
+    private final ThreadLocal<ThreadState> threadStates = ThreadLocal.withInitial(this::register);
+    private final CopyOnWriteArrayList<ThreadState> otherThreads = new CopyOnWriteArrayList<>();
+    private final ProfileWriter writer;
+    private final LongSupplier timeGetter;
+    private final double timeDivisor;
+    private boolean tickStarted;
+
+    /**
+     * @param timeGetter a supplier for the current time. Called from every profiled thread.
+     * @param timeDivisor a conversion factor turning the units of {@code timeGetter} to the units
+     *        output to a file.
+     */
+    public ThreadedProfiler(LongSupplier timeGetter, double timeDivisor) {
+        this(timeGetter, timeDivisor, new JsonProfileLoggingFormat());
+    }
+
+    /**
+     * @param timeGetter a supplier for the current time. Called from every profiled thread.
+     * @param timeDivisor a conversion factor turning the units of {@code timeGetter} to the units
+     *        output to a file.
+     * @param formats the formats each saved profile is logged in.
+     */
+    public ThreadedProfiler(LongSupplier timeGetter, double timeDivisor,
+        ProfileLoggingFormat... formats) {
+        this.timeGetter = timeGetter;
+        this.timeDivisor = timeDivisor;
+        this.mainThread = Thread.currentThread();
+        this.main = new ThreadState(mainThread.getName());
+        this.writer = new ProfileWriter(timeGetter, timeDivisor, formats);
+    }
+
+    /**
+     * Per-thread profiling state. Apart from the {@code volatile} and atomic fields, only touched
+     * by its own thread.
+     */
+    private static final class ThreadState {
+        final int location;
+        final LongArrayList timeList = new LongArrayList();
+        final LongArrayList allocationList = new LongArrayList();
+        ProfileNodeTable nodes = new ProfileNodeTable();
+        int currentNode = ProfileNodeTable.SENTINEL;
+        long lastMark;
+        long lastMarkAllocation;
+
+        /** A cleared table to switch to when handing {@link #nodes} over. */
+        final AtomicReference<ProfileNodeTable> spare =
+            new AtomicReference<>(new ProfileNodeTable());
+        /** A full table waiting to be merged by the main thread. */
+        final AtomicReference<ProfileNodeTable> handoff = new AtomicReference<>();
+        volatile boolean handoffRequested;
+
+        ThreadState(String name) {
+            this.location = Profiler.intern(name + " (thread)");
+        }
+    }
+
+    private ThreadState register() {
+        ThreadState state = new ThreadState(Thread.currentThread().getName());
+        otherThreads.add(state);
+        return state;
+    }
+
+    private ThreadState state() {
+        return Thread.currentThread() == mainThread ? main : threadStates.get();
+    }
+
+    private void checkMainThread(String method) {
+        if (Thread.currentThread() != mainThread) {
+            throw new RuntimeException(method + " may only be called from the thread that created "
+                + "the profiler (" + mainThread.getName() + ").");
+        }
+    }
+
+    @Override
+    public void save() {
+        checkMainThread("save()");
+        if (this.tickStarted) {
+            throw new RuntimeException("Cannot save the profiler in the middle of a tick.");
+        }
+        long start = timeGetter.getAsLong();
+        int root = main.nodes.child(ProfileNodeTable.SENTINEL, ROOT);
+        for (ThreadState other : otherThreads) {
+            ProfileNodeTable table = other.handoff.getAndSet(null);
+            if (table != null) {
+                mergeThread(root, other, table);
+                table.clearMetrics();
+                other.spare.set(table);
+            }
+            other.handoffRequested = true;
+        }
+        main.nodes = writer.submit(main.nodes);
+        long end = timeGetter.getAsLong();
+        Logger.recordOutput("profile/timeToSave", (end - start) / timeDivisor);
+        Logger.recordOutput("profile/droppedSaves", this.writer.droppedSaves());
+    }
+
+    /**
+     * Merge the tree of {@code other} under a node for its thread below {@code root}. The thread
+     * node gets the combined metrics of the thread's top-level locations.
+     */
+    private void mergeThread(int root, ThreadState other, ProfileNodeTable table) {
+        ProfileNodeTable nodes = main.nodes;
+        int threadNode = nodes.child(root, other.location);
+        for (int top = table.firstChild[ProfileNodeTable.SENTINEL]; top != ProfileNodeTable.NONE;
+            top = table.nextSibling[top]) {
+            nodes.mergeTree(threadNode, table, top);
+            nodes.merge(threadNode, table, top);
+        }
+    }
+
+    @Override
+    public void startTick() {
+        checkMainThread("startTick()");
+        if (this.tickStarted) {
+            throw new RuntimeException("Profiler tick already started. Missing endTick()?");
+        } else {
+            this.tickStarted = true;
+            main.currentNode = ProfileNodeTable.SENTINEL;
+            main.timeList.clear();
+            main.allocationList.clear();
+            this.push(main, ROOT);
+        }
+    }
+
+    @Override
+    public void endTick() {
+        checkMainThread("endTick()");
+        if (!this.tickStarted) {
+            throw new RuntimeException("Profiler tick already ended. Missing startTick()?");
+        } else {
+            this.pop(main);
+            this.tickStarted = false;
+            if (main.currentNode != ProfileNodeTable.SENTINEL) {
+                throw new RuntimeException(
+                    "Profiler tick ended before path was fully popped. Mismatched push/pop?");
+            }
+            this.writer.publishCompleted();
+        }
+    }
+
+    @Override
+    public void push(String location) {
+        this.push(Profiler.intern(location));
+    }
+
+    @Override
+    public void push(int locationId) {
+        ThreadState state = state();
+        if (state == main && !this.tickStarted) {
+            throw new RuntimeException("Cannot push '" + ProfilerLocations.name(locationId)
+                + "' to the profiler if profiler tick hasn't started. Missing startTick()?");
+        }
+        this.push(state, locationId);
+    }
+
+    private void push(ThreadState state, int locationId) {
+        state.currentNode = state.nodes.child(state.currentNode, locationId);
+        long allocated = LoggingProfiler.allocatedBytes();
+        long time = timeGetter.getAsLong();
+        state.timeList.add(time);
+        state.allocationList.add(allocated);
+        state.lastMark = time;
+        state.lastMarkAllocation = allocated;
+    }
+
+    @Override
+    public void mark(int locationId) {
+        ThreadState state = state();
+        if (state == main && !this.tickStarted) {
+            throw new RuntimeException("Cannot mark '" + ProfilerLocations.name(locationId)
+                + "' in the profiler if profiler tick hasn't started. Missing startTick()?");
+        }
+        long time = timeGetter.getAsLong();
+        long allocated = LoggingProfiler.allocatedBytes();
+        state.nodes.record(state.nodes.child(state.currentNode, locationId),
+            time - state.lastMark, allocated - state.lastMarkAllocation);
+        state.lastMark = time;
+        state.lastMarkAllocation = allocated;
+    }
+
+    @Override
+    public void pop() {
+        ThreadState state = state();
+        if (state == main && !this.tickStarted) {
+            throw new RuntimeException(
+                "Cannot pop from profiler if profiler tick hasn't started. Missing startTick()?");
+        }
+        this.pop(state);
+    }
+
+    private void pop(ThreadState state) {
+        if (state.timeList.isEmpty()) {
+            throw new RuntimeException(
+                "Tried to pop one too many times! Mismatched push() and pop()?");
+        }
+        long currentTime = timeGetter.getAsLong();
+        long currentAllocation = LoggingProfiler.allocatedBytes();
+        long startTime = state.timeList.removeLast();
+        long startAllocation = state.allocationList.removeLast();
+        state.nodes.record(state.currentNode, currentTime - startTime,
+            currentAllocation - startAllocation);
+        state.lastMark = currentTime;
+        state.lastMarkAllocation = currentAllocation;
+        state.currentNode = state.nodes.parent[state.currentNode];
+        if (state != main && state.currentNode == ProfileNodeTable.SENTINEL
+            && state.handoffRequested) {
+            handOff(state);
+        }
+    }
+
+    /**
+     * Give the main thread the table of {@code state}, if a spare is available to continue in and
+     * the previous one has been merged. Called by the owning thread with an empty stack.
+     */
+    private static void handOff(ThreadState state) {
+        if (state.handoff.get() != null) {
+            return;
+        }
+        ProfileNodeTable free = state.spare.getAndSet(null);
+        if (free != null) {
+            state.handoff.set(state.nodes);
+            state.nodes = free;
+            state.handoffRequested = false;
+        }
+    }
+
+    @Override
+    public void reset() {
+        checkMainThread("reset()");
+        main.nodes.clearMetrics();
+        main.currentNode = ProfileNodeTable.SENTINEL;
+        main.timeList.clear();
+        main.allocationList.clear();
+        for (ThreadState other : otherThreads) {
+            ProfileNodeTable table = other.handoff.getAndSet(null);
+            if (table != null) {
+                table.clearMetrics();
+                other.spare.set(table);
+            }
+        }
+    }
+}
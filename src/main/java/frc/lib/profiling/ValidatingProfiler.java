@@ -1,12 +1,16 @@
 package frc.lib.profiling;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
 
 /**
  * This logger only performs validation (i.e. throws if {@link #pop() pop} is called with an empty
  * stack). Otherwise, does nothing. Because there is no variance in doing nothing, a single instance
  * is provided as {@link #INSTANCE}.
+ *
+ * <p>
+ * The profile stack is tracked as an array of interned location IDs, so valid calls neither
+ * allocate nor inspect the call stack. The caller is only looked up, with a {@link StackWalker},
+ * once a mismatch has been found, and error messages list the locations that were left pushed.
  */
 public final class ValidatingProfiler implements Profiler {
 
@@ -15,16 +19,17 @@ public final class ValidatingProfiler implements Profiler {
      */
     public static final ValidatingProfiler INSTANCE = new ValidatingProfiler();
 
+    private static final int ROOT = Profiler.intern("root");
+    private static final StackWalker WALKER = StackWalker.getInstance();
+
     private ValidatingProfiler() {}
 
     /**
-     * Keeps track of methods and how many times they call push/pop.
+     * Location IDs currently on the profile stack, bottom first.
      */
-    private Map<String, Integer> methodPushHelper = new HashMap<>();
-
-    private boolean tickStarted = false;
+    private int[] path = new int[16];
     private int pathLen = 0;
-    private boolean fullPathEmpty = true;
+    private boolean tickStarted = false;
 
     @Override
     public void save() {
@@ -34,46 +39,29 @@ public final class ValidatingProfiler implements Profiler {
     @Override
     public void startTick() {
         if (this.tickStarted) {
-            throw new RuntimeException("Profiler tick already started. Missing endTick()?");
+            throw new RuntimeException("Profiler tick already started. Missing endTick()?\n"
+                + describePath() + describeCaller("startTick()"));
         } else {
             tickStarted = true;
             pathLen = 0;
-            fullPathEmpty = true;
-            this.push("root");
+            this.push(ROOT);
         }
     }
 
     @Override
     public void endTick() {
         if (!this.tickStarted) {
-            StringBuilder builder = new StringBuilder();
-            for (var entry : methodPushHelper.entrySet()) {
-                if (entry.getValue() != 0) {
-                    builder.append(entry.getKey());
-                    builder.append(" has ");
-                    builder.append(entry.getValue());
-                    builder.append(" more pushes that pops.\n");
-                }
-            }
-            throw new RuntimeException(
-                "Profiler tick already ended. Missing startTick()?\n" + builder.toString());
+            throw new RuntimeException("Profiler tick already ended. Missing startTick()?\n"
+                + describeCaller("endTick()"));
+        } else if (pathLen > 1) {
+            String message =
+                "Profiler tick ended before path was fully popped. Mismatched push/pop?\n"
+                    + describePath() + describeCaller("endTick()");
+            this.tickStarted = false;
+            throw new RuntimeException(message);
         } else {
             this.pop();
             this.tickStarted = false;
-            if (!this.fullPathEmpty) {
-                StringBuilder builder = new StringBuilder();
-                for (var entry : methodPushHelper.entrySet()) {
-                    if (entry.getValue() != 0) {
-                        builder.append(entry.getKey());
-                        builder.append(" has ");
-                        builder.append(entry.getValue());
-                        builder.append(" more pushes that pops.\n");
-                    }
-                }
-                throw new RuntimeException(
-                    "Profiler tick ended before path was fully popped. Mismatched push/pop?\n"
-                        + builder.toString());
-            }
         }
     }
 
@@ -81,20 +69,33 @@ public final class ValidatingProfiler implements Profiler {
     public void push(String location) {
         if (!this.tickStarted) {
             throw new RuntimeException("Cannot push '" + location
-                + "' to the profiler if profiler tick hasn't started. Missing startTick()?");
+                + "' to the profiler if profiler tick hasn't started. Missing startTick()?\n"
+                + describeCaller("push()"));
         } else {
-            for (var stack : Thread.currentThread().getStackTrace()) {
-                if (stack.getClassName().equals(ValidatingProfiler.class.getCanonicalName())
-                    || stack.getClassName().equals(Profiler.class.getCanonicalName())
-                    || stack.getClassName().equals(Thread.class.getCanonicalName())) {
-                    continue;
-                }
-                String key = stack.getClassName() + "." + stack.getMethodName();
-                methodPushHelper.put(key, methodPushHelper.computeIfAbsent(key, (_k) -> 0) + 1);
-                break;
+            this.push(Profiler.intern(location));
+        }
+    }
+
+    @Override
+    public void push(int locationId) {
+        if (!this.tickStarted) {
+            throw new RuntimeException("Cannot push '" + ProfilerLocations.name(locationId)
+                + "' to the profiler if profiler tick hasn't started. Missing startTick()?\n"
+                + describeCaller("push()"));
+        } else {
+            if (pathLen == path.length) {
+                path = Arrays.copyOf(path, path.length * 2);
             }
-            fullPathEmpty = false;
-            pathLen += 1;
+            path[pathLen++] = locationId;
+        }
+    }
+
+    @Override
+    public void mark(int locationId) {
+        if (!this.tickStarted) {
+            throw new RuntimeException("Cannot mark '" + ProfilerLocations.name(locationId)
+                + "' in the profiler if profiler tick hasn't started. Missing startTick()?\n"
+                + describeCaller("mark()"));
         }
     }
 
@@ -102,35 +103,14 @@ public final class ValidatingProfiler implements Profiler {
     public void pop() {
         if (!this.tickStarted) {
             throw new RuntimeException(
-                "Cannot pop from profiler if profiler tick hasn't started. Missing startTick()?");
+                "Cannot pop from profiler if profiler tick hasn't started. Missing startTick()?\n"
+                    + describeCaller("pop()"));
         } else if (pathLen == 0) {
-            StringBuilder builder = new StringBuilder();
-            for (var entry : methodPushHelper.entrySet()) {
-                if (entry.getValue() != 0) {
-                    builder.append(entry.getKey());
-                    builder.append(" has ");
-                    builder.append(-entry.getValue());
-                    builder.append(" more pops than pushes.\n");
-                }
-            }
             throw new RuntimeException(
                 "Tried to pop one too many times! Mismatched push() and pop()?\n"
-                    + builder.toString());
+                    + describeCaller("pop()"));
         } else {
-            for (var stack : Thread.currentThread().getStackTrace()) {
-                if (stack.getClassName().equals(ValidatingProfiler.class.getCanonicalName())
-                    || stack.getClassName().equals(Profiler.class.getCanonicalName())
-                    || stack.getClassName().equals(Thread.class.getCanonicalName())) {
-                    continue;
-                }
-                String key = stack.getClassName() + "." + stack.getMethodName();
-                methodPushHelper.put(key, methodPushHelper.computeIfAbsent(key, (_k) -> 0) - 1);
-                break;
-            }
             pathLen -= 1;
-            if (pathLen == 0) {
-                fullPathEmpty = true;
-            }
         }
     }
 
@@ -138,4 +118,30 @@ public final class ValidatingProfiler implements Profiler {
     public void reset() {
 
     }
+
+    /**
+     * Describe the locations still on the profile stack, innermost first.
+     */
+    private String describePath() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = pathLen - 1; i >= 0; i--) {
+            builder.append("'");
+            builder.append(ProfilerLocations.name(path[i]));
+            builder.append("' is still pushed.\n");
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Describe the first method outside of the profiler that called {@code method}.
+     */
+    private static String describeCaller(String method) {
+        return WALKER.walk(frames -> frames
+            .filter(frame -> !frame.getClassName().equals(ValidatingProfiler.class.getName())
+                && !frame.getClassName().equals(Profiler.class.getName()))
+            .findFirst()
+            .map(frame -> method + " was called from " + frame.getClassName() + "."
+                + frame.getMethodName() + ":" + frame.getLineNumber() + ".\n")
+            .orElse(""));
+    }
 }
@@ -23,7 +23,8 @@ public class SimulatedPumbaa {
 
     private static final double SHOOTER_DIV = 100.0;
     private static final double SHOOTER_FRONT = 0.271162;
-    private Pose2d pose = new Pose2d();
+    // Read by simulated cameras on their own threads.
+    private volatile Pose2d pose = new Pose2d();
     private double intake = 0.0;
     private double indexer = 0.0;
     private double notePosition = 0.9;
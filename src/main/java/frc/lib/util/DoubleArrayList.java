@@ -0,0 +1,298 @@
+package frc.lib.util;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * An optimized double array. Used in lieu of an {@code ArrayList<Double>} to avoid boxing (and the
+ * performance implications that come with it).
+ *
+ * <p>
+ * Mirrors the parts of the {@link java.util.List} interface that make sense for primitives.
+ * {@link #getLast()} and {@link #removeLast()}, used for stack-like access, only check that the
+ * list isn't empty.
+ */
+public class DoubleArrayList implements RandomAccess, Cloneable, java.io.Serializable {
+    private static final long serialVersionUID = -2215964853089051724L;
+
+    /**
+     * During list creation, many reallocations at low capacities may be common, so we jump from 0
+     * to 10 before our normal reallocation scheme.
+     */
+    public static final int DEFAULT_INITIAL_CAPACITY = 10;
+
+    protected transient double[] backing;
+    protected int size;
+
+    /**
+     * A static, final, empty array to be used as default array in allocations.
+     */
+    private static final double[] DEFAULT_EMPTY_ARRAY = {};
+
+
+    /**
+     * Creates a new array list with {@link #DEFAULT_INITIAL_CAPACITY} capacity.
+     */
+    public DoubleArrayList() {
+        backing = DEFAULT_EMPTY_ARRAY;
+    }
+
+    /**
+     * Creates a new array list that can hold {@code capacity} doubles before reallocating.
+     */
+    public DoubleArrayList(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Illegal capacity: " + capacity);
+        }
+        backing = capacity == 0 ? DEFAULT_EMPTY_ARRAY : new double[capacity];
+    }
+
+    /**
+     * Creates a new array list containing {@code values}.
+     */
+    public static DoubleArrayList of(double... values) {
+        DoubleArrayList list = new DoubleArrayList(values.length);
+        list.addAll(values);
+        return list;
+    }
+
+    /**
+     * Grows this arraylist, ensuring it can contain {@code capacity} doubles.
+     *
+     * @param capacity the new minimum capacity for this array list.
+     */
+    private void grow(int capacity) {
+        if (capacity <= backing.length) {
+            return;
+        }
+        if (backing != DEFAULT_EMPTY_ARRAY) {
+            capacity = (int) Math.max(
+                Math.min((long) backing.length + (backing.length >> 1), Integer.MAX_VALUE - 8),
+                capacity);
+        } else if (capacity < DEFAULT_INITIAL_CAPACITY) {
+            capacity = DEFAULT_INITIAL_CAPACITY;
+        }
+        backing = forceCapacity(backing, capacity, size);
+        assert size <= backing.length;
+    }
+
+    /**
+     * Ensures this list can hold {@code capacity} doubles without reallocating.
+     */
+    public void ensureCapacity(int capacity) {
+        grow(capacity);
+    }
+
+    /**
+     * Appends {@code k} to the end of this list.
+     */
+    public void add(final double k) {
+        grow(size + 1);
+        backing[size++] = k;
+        assert size <= backing.length;
+    }
+
+    /**
+     * Inserts {@code k} at position {@code index}, shifting later elements up.
+     */
+    public void add(int index, final double k) {
+        Objects.checkIndex(index, size + 1);
+        grow(size + 1);
+        if (index != size) {
+            System.arraycopy(backing, index, backing, index + 1, size - index);
+        }
+        backing[index] = k;
+        size++;
+    }
+
+    /**
+     * Appends {@code length} elements of {@code values}, starting at {@code offset}.
+     */
+    public void addAll(double[] values, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, values.length);
+        grow(size + length);
+        System.arraycopy(values, offset, backing, size, length);
+        size += length;
+    }
+
+    /**
+     * Appends all of {@code values}.
+     */
+    public void addAll(double... values) {
+        addAll(values, 0, values.length);
+    }
+
+    /**
+     * Appends all elements of {@code other}.
+     */
+    public void addAll(DoubleArrayList other) {
+        addAll(other.backing, 0, other.size);
+    }
+
+    /**
+     * Get double element at index {@code index}.
+     */
+    public double get(int index) {
+        Objects.checkIndex(index, size);
+        return backing[index];
+    }
+
+    /**
+     * Replace the element at {@code index} with {@code k}.
+     *
+     * @return the previous element.
+     */
+    public double set(int index, final double k) {
+        Objects.checkIndex(index, size);
+        final double old = backing[index];
+        backing[index] = k;
+        return old;
+    }
+
+    /**
+     * Get the last element.
+     *
+     * @throws NoSuchElementException if the list is empty.
+     */
+    public double getLast() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        return backing[size - 1];
+    }
+
+    /**
+     * Checks if the list has no elements.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the number of elements in this list.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the index of the first element equal to {@code k} (as by {@link Double#compare}), or -1
+     * if there is none.
+     */
+    public int indexOf(final double k) {
+        for (int i = 0; i < size; i++) {
+            if (Double.compare(backing[i], k) == 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Checks if any element is equal to {@code k}.
+     */
+    public boolean contains(final double k) {
+        return indexOf(k) >= 0;
+    }
+
+    /**
+     * Removes the element at the specified position in this list.
+     */
+    public double remove(final int index) {
+        Objects.checkIndex(index, size);
+        final double[] a = this.backing;
+        final double old = a[index];
+        size--;
+        if (index != size) {
+            System.arraycopy(a, index + 1, a, index, size - index);
+        }
+        assert size <= a.length;
+        return old;
+    }
+
+    /**
+     * Removes and returns the last element.
+     *
+     * @throws NoSuchElementException if the list is empty.
+     */
+    public double removeLast() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        return backing[--size];
+    }
+
+    /**
+     * Removes the elements from {@code fromIndex} (inclusive) to {@code toIndex} (exclusive).
+     */
+    public void removeRange(int fromIndex, int toIndex) {
+        Objects.checkFromToIndex(fromIndex, toIndex, size);
+        System.arraycopy(backing, toIndex, backing, fromIndex, size - toIndex);
+        size -= toIndex - fromIndex;
+    }
+
+    public void clear() {
+        this.size = 0;
+    }
+
+    /**
+     * Copies the elements of this list into a new array.
+     */
+    public double[] toArray() {
+        return Arrays.copyOf(backing, size);
+    }
+
+    /**
+     * Copies the elements of this list into {@code dest}, starting at {@code destOffset}.
+     */
+    public void toArray(double[] dest, int destOffset) {
+        System.arraycopy(backing, 0, dest, destOffset, size);
+    }
+
+    @Override
+    public DoubleArrayList clone() {
+        try {
+            DoubleArrayList copy = (DoubleArrayList) super.clone();
+            copy.backing = size == 0 ? DEFAULT_EMPTY_ARRAY : Arrays.copyOf(backing, size);
+            return copy;
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    /**
+     * Writes the size followed by only the elements in use, not the spare capacity.
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        for (int i = 0; i < size; i++) {
+            out.writeDouble(backing[i]);
+        }
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        backing = size == 0 ? DEFAULT_EMPTY_ARRAY : new double[size];
+        for (int i = 0; i < size; i++) {
+            backing[i] = in.readDouble();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+
+    private static double[] forceCapacity(final double[] array, final int length,
+        final int preserve) {
+        final double[] newArray = new double[length];
+        System.arraycopy(array, 0, newArray, 0, preserve);
+        return newArray;
+    }
+
+}
@@ -0,0 +1,151 @@
+package frc.lib.util;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryUsage;
+import java.util.function.LongSupplier;
+import org.littletonrobotics.junction.Logger;
+
+/**
+ * Runs the garbage collector when a pause is least likely to hurt, instead of on a fixed timer.
+ *
+ * <p>
+ * Every loop, heap occupancy is sampled from the {@link MemoryMXBean} and the allocation rate is
+ * estimated from how fast used heap grows between collections. A collection is forced:
+ * <ul>
+ * <li>in a safe window (the robot is disabled, which includes the gap between autonomous and
+ * teleop on the field) once enough garbage has built up since the last collection, or</li>
+ * <li>while enabled, only if the heap is projected to fill up soon <b>and</b> the current loop has
+ * enough slack left to absorb the pause, going by how long previous forced collections took.</li>
+ * </ul>
+ * Otherwise the JVM is left to collect on its own.
+ *
+ * <p>
+ * Pause times of both forced collections and the JVM's own are logged under {@code GC/}.
+ */
+public class GarbageCollectionScheduler {
+    private static final double BYTES_PER_MB = 1024.0 * 1024.0;
+
+    /** Garbage built up (as a fraction of the heap) before collecting in a safe window. */
+    private static final double SAFE_WINDOW_GROWTH = 0.05;
+    /** Minimum time between collections in a safe window, in microseconds. */
+    private static final long SAFE_WINDOW_INTERVAL = 1_000_000;
+    /** Heap occupancy at which a collection is worth squeezing into an enabled loop. */
+    private static final double ENABLED_OCCUPANCY = 0.7;
+    /** How far ahead the allocation rate is projected while enabled, in seconds. */
+    private static final double ENABLED_HORIZON = 5.0;
+    /** Minimum time between collections while enabled, in microseconds. */
+    private static final long ENABLED_INTERVAL = 5_000_000;
+    /** Pause assumed before any collection has been measured, in microseconds. */
+    private static final long INITIAL_PAUSE_ESTIMATE = 50_000;
+    /** Weight of the newest sample in the allocation rate and pause estimates. */
+    private static final double SMOOTHING = 0.2;
+
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    private final GarbageCollectorMXBean[] collectors = ManagementFactory
+        .getGarbageCollectorMXBeans().toArray(GarbageCollectorMXBean[]::new);
+    private final LongSupplier timeGetter;
+
+    private long lastSampleTime;
+    private long lastUsed;
+    private long lastCollectionCount;
+    private long lastCollectionTime;
+    private double allocationRate;
+    private double pauseEstimate = INITIAL_PAUSE_ESTIMATE;
+    private long lastForcedTime;
+    private long usedAfterLastCollection;
+    private long forcedCollections;
+
+    /**
+     * @param timeGetter a supplier for the current time in microseconds.
+     */
+    public GarbageCollectionScheduler(LongSupplier timeGetter) {
+        this.timeGetter = timeGetter;
+        this.lastSampleTime = timeGetter.getAsLong();
+        this.lastForcedTime = this.lastSampleTime;
+        this.lastUsed = memory.getHeapMemoryUsage().getUsed();
+        this.usedAfterLastCollection = this.lastUsed;
+        this.lastCollectionCount = collectionCount();
+        this.lastCollectionTime = collectionTime();
+    }
+
+    /**
+     * Sample the heap and force a collection if now is a good time. Call once per loop.
+     *
+     * @param safeWindow whether a pause can't hurt right now, e.g. the robot is disabled.
+     * @param slack how much of the current loop's budget is left, in microseconds.
+     */
+    public void periodic(boolean safeWindow, long slack) {
+        long now = timeGetter.getAsLong();
+        MemoryUsage heap = memory.getHeapMemoryUsage();
+        long used = heap.getUsed();
+        long max = heap.getMax() > 0 ? heap.getMax() : heap.getCommitted();
+
+        long collectionCount = collectionCount();
+        long collectionTime = collectionTime();
+        if (collectionCount != lastCollectionCount) {
+            // The JVM collected since the last sample, so the change in used heap says nothing
+            // about allocation. Start measuring again from here.
+            usedAfterLastCollection = used;
+        } else if (now > lastSampleTime && used >= lastUsed) {
+            double rate = (used - lastUsed) * 1e6 / (now - lastSampleTime);
+            allocationRate += SMOOTHING * (rate - allocationRate);
+        }
+        Logger.recordOutput("GC/JvmCollections", collectionCount);
+        Logger.recordOutput("GC/JvmPauseMs", (double) (collectionTime - lastCollectionTime));
+        lastCollectionCount = collectionCount;
+        lastCollectionTime = collectionTime;
+
+        if (shouldCollect(safeWindow, slack, now, used, max)) {
+            long start = timeGetter.getAsLong();
+            System.gc();
+            long end = timeGetter.getAsLong();
+            pauseEstimate += SMOOTHING * ((end - start) - pauseEstimate);
+            forcedCollections++;
+            lastForcedTime = end;
+            Logger.recordOutput("GC/ForcedPauseMs", (end - start) / 1000.0);
+            // Our own collection shows up in the JVM's counters; don't report it twice.
+            lastCollectionCount = collectionCount();
+            lastCollectionTime = collectionTime();
+            used = memory.getHeapMemoryUsage().getUsed();
+            usedAfterLastCollection = used;
+            now = end;
+        }
+        lastSampleTime = now;
+        lastUsed = used;
+
+        Logger.recordOutput("GC/ForcedCollections", forcedCollections);
+        Logger.recordOutput("GC/HeapUsedMB", used / BYTES_PER_MB);
+        Logger.recordOutput("GC/HeapOccupancy", (double) used / max);
+        Logger.recordOutput("GC/AllocationRateMBps", allocationRate / BYTES_PER_MB);
+        Logger.recordOutput("GC/PauseEstimateMs", pauseEstimate / 1000.0);
+    }
+
+    private boolean shouldCollect(boolean safeWindow, long slack, long now, long used, long max) {
+        long sinceLast = now - lastForcedTime;
+        if (safeWindow) {
+            return sinceLast >= SAFE_WINDOW_INTERVAL
+                && used - usedAfterLastCollection >= SAFE_WINDOW_GROWTH * max;
+        }
+        double projected = used + allocationRate * ENABLED_HORIZON;
+        return sinceLast >= ENABLED_INTERVAL && projected >= ENABLED_OCCUPANCY * max
+            && slack >= 2 * pauseEstimate;
+    }
+
+    private long collectionCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean collector : collectors) {
+            count += Math.max(0, collector.getCollectionCount());
+        }
+        return count;
+    }
+
+    private long collectionTime() {
+        long time = 0;
+        for (GarbageCollectorMXBean collector : collectors) {
+            time += Math.max(0, collector.getCollectionTime());
+        }
+        return time;
+    }
+}
@@ -0,0 +1,296 @@
+package frc.lib.util;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * An optimized int array. Used in lieu of an {@code ArrayList<Integer>} to avoid boxing (and the
+ * performance implications that come with it).
+ *
+ * <p>
+ * Mirrors the parts of the {@link java.util.List} interface that make sense for primitives.
+ * {@link #getLast()} and {@link #removeLast()}, used for stack-like access, only check that the
+ * list isn't empty.
+ */
+public class IntArrayList implements RandomAccess, Cloneable, java.io.Serializable {
+    private static final long serialVersionUID = 3862519607217338612L;
+
+    /**
+     * During list creation, many reallocations at low capacities may be common, so we jump from 0
+     * to 10 before our normal reallocation scheme.
+     */
+    public static final int DEFAULT_INITIAL_CAPACITY = 10;
+
+    protected transient int[] backing;
+    protected int size;
+
+    /**
+     * A static, final, empty array to be used as default array in allocations.
+     */
+    private static final int[] DEFAULT_EMPTY_ARRAY = {};
+
+
+    /**
+     * Creates a new array list with {@link #DEFAULT_INITIAL_CAPACITY} capacity.
+     */
+    public IntArrayList() {
+        backing = DEFAULT_EMPTY_ARRAY;
+    }
+
+    /**
+     * Creates a new array list that can hold {@code capacity} ints before reallocating.
+     */
+    public IntArrayList(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Illegal capacity: " + capacity);
+        }
+        backing = capacity == 0 ? DEFAULT_EMPTY_ARRAY : new int[capacity];
+    }
+
+    /**
+     * Creates a new array list containing {@code values}.
+     */
+    public static IntArrayList of(int... values) {
+        IntArrayList list = new IntArrayList(values.length);
+        list.addAll(values);
+        return list;
+    }
+
+    /**
+     * Grows this arraylist, ensuring it can contain {@code capacity} ints.
+     *
+     * @param capacity the new minimum capacity for this array list.
+     */
+    private void grow(int capacity) {
+        if (capacity <= backing.length) {
+            return;
+        }
+        if (backing != DEFAULT_EMPTY_ARRAY) {
+            capacity = (int) Math.max(
+                Math.min((long) backing.length + (backing.length >> 1), Integer.MAX_VALUE - 8),
+                capacity);
+        } else if (capacity < DEFAULT_INITIAL_CAPACITY) {
+            capacity = DEFAULT_INITIAL_CAPACITY;
+        }
+        backing = forceCapacity(backing, capacity, size);
+        assert size <= backing.length;
+    }
+
+    /**
+     * Ensures this list can hold {@code capacity} ints without reallocating.
+     */
+    public void ensureCapacity(int capacity) {
+        grow(capacity);
+    }
+
+    /**
+     * Appends {@code k} to the end of this list.
+     */
+    public void add(final int k) {
+        grow(size + 1);
+        backing[size++] = k;
+        assert size <= backing.length;
+    }
+
+    /**
+     * Inserts {@code k} at position {@code index}, shifting later elements up.
+     */
+    public void add(int index, final int k) {
+        Objects.checkIndex(index, size + 1);
+        grow(size + 1);
+        if (index != size) {
+            System.arraycopy(backing, index, backing, index + 1, size - index);
+        }
+        backing[index] = k;
+        size++;
+    }
+
+    /**
+     * Appends {@code length} elements of {@code values}, starting at {@code offset}.
+     */
+    public void addAll(int[] values, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, values.length);
+        grow(size + length);
+        System.arraycopy(values, offset, backing, size, length);
+        size += length;
+    }
+
+    /**
+     * Appends all of {@code values}.
+     */
+    public void addAll(int... values) {
+        addAll(values, 0, values.length);
+    }
+
+    /**
+     * Appends all elements of {@code other}.
+     */
+    public void addAll(IntArrayList other) {
+        addAll(other.backing, 0, other.size);
+    }
+
+    /**
+     * Get int element at index {@code index}.
+     */
+    public int get(int index) {
+        Objects.checkIndex(index, size);
+        return backing[index];
+    }
+
+    /**
+     * Replace the element at {@code index} with {@code k}.
+     *
+     * @return the previous element.
+     */
+    public int set(int index, final int k) {
+        Objects.checkIndex(index, size);
+        final int old = backing[index];
+        backing[index] = k;
+        return old;
+    }
+
+    /**
+     * Get the last element.
+     *
+     * @throws NoSuchElementException if the list is empty.
+     */
+    public int getLast() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        return backing[size - 1];
+    }
+
+    /**
+     * Checks if the list has no elements.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the number of elements in this list.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the index of the first element equal to {@code k}, or -1 if there is none.
+     */
+    public int indexOf(final int k) {
+        for (int i = 0; i < size; i++) {
+            if (backing[i] == k) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Checks if any element is equal to {@code k}.
+     */
+    public boolean contains(final int k) {
+        return indexOf(k) >= 0;
+    }
+
+    /**
+     * Removes the element at the specified position in this list.
+     */
+    public int remove(final int index) {
+        Objects.checkIndex(index, size);
+        final int[] a = this.backing;
+        final int old = a[index];
+        size--;
+        if (index != size) {
+            System.arraycopy(a, index + 1, a, index, size - index);
+        }
+        assert size <= a.length;
+        return old;
+    }
+
+    /**
+     * Removes and returns the last element.
+     *
+     * @throws NoSuchElementException if the list is empty.
+     */
+    public int removeLast() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        return backing[--size];
+    }
+
+    /**
+     * Removes the elements from {@code fromIndex} (inclusive) to {@code toIndex} (exclusive).
+     */
+    public void removeRange(int fromIndex, int toIndex) {
+        Objects.checkFromToIndex(fromIndex, toIndex, size);
+        System.arraycopy(backing, toIndex, backing, fromIndex, size - toIndex);
+        size -= toIndex - fromIndex;
+    }
+
+    public void clear() {
+        this.size = 0;
+    }
+
+    /**
+     * Copies the elements of this list into a new array.
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(backing, size);
+    }
+
+    /**
+     * Copies the elements of this list into {@code dest}, starting at {@code destOffset}.
+     */
+    public void toArray(int[] dest, int destOffset) {
+        System.arraycopy(backing, 0, dest, destOffset, size);
+    }
+
+    @Override
+    public IntArrayList clone() {
+        try {
+            IntArrayList copy = (IntArrayList) super.clone();
+            copy.backing = size == 0 ? DEFAULT_EMPTY_ARRAY : Arrays.copyOf(backing, size);
+            return copy;
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    /**
+     * Writes the size followed by only the elements in use, not the spare capacity.
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        for (int i = 0; i < size; i++) {
+            out.writeInt(backing[i]);
+        }
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        backing = size == 0 ? DEFAULT_EMPTY_ARRAY : new int[size];
+        for (int i = 0; i < size; i++) {
+            backing[i] = in.readInt();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+
+    private static int[] forceCapacity(final int[] array, final int length, final int preserve) {
+        final int[] newArray = new int[length];
+        System.arraycopy(array, 0, newArray, 0, preserve);
+        return newArray;
+    }
+
+}
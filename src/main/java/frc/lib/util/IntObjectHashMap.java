@@ -0,0 +1,211 @@
+package frc.lib.util;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A hash map from {@code int} keys to objects using open addressing with linear probing. Used in
+ * lieu of a {@code HashMap<Integer, V>} to avoid boxing keys and allocating entries: once the map
+ * has grown to its working size, {@link #get(int) get}, {@link #put(int, Object) put} and
+ * {@link #remove(int) remove} do not allocate.
+ *
+ * <p>
+ * Values may not be {@code null}; a {@code null} slot marks an empty bucket.
+ *
+ * @param <V> the type of values in the map.
+ */
+public class IntObjectHashMap<V> {
+
+    /**
+     * Receives each mapping in {@link IntObjectHashMap#forEach(EntryConsumer)}.
+     */
+    @FunctionalInterface
+    public interface EntryConsumer<V> {
+        void accept(int key, V value);
+    }
+
+    public static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    private int[] keys;
+    private Object[] values;
+    private int size;
+    private int mask;
+    /** 32 minus log2 of the table size, so the top bits of a hash index the table. */
+    private int shift;
+
+    /**
+     * Creates an empty map with room for {@link #DEFAULT_INITIAL_CAPACITY} mappings.
+     */
+    public IntObjectHashMap() {
+        this(DEFAULT_INITIAL_CAPACITY);
+    }
+
+    /**
+     * Creates an empty map with room for {@code expectedSize} mappings before resizing.
+     */
+    public IntObjectHashMap(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Illegal size: " + expectedSize);
+        }
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    /**
+     * Smallest power-of-two table that keeps {@code size} mappings at most half full.
+     */
+    private static int tableSizeFor(int size) {
+        int needed = Math.max(2, size * 2);
+        int tableSize = Integer.highestOneBit(needed);
+        return tableSize < needed ? tableSize << 1 : tableSize;
+    }
+
+    private void allocate(int tableSize) {
+        keys = new int[tableSize];
+        values = new Object[tableSize];
+        mask = tableSize - 1;
+        shift = Integer.numberOfLeadingZeros(tableSize) + 1;
+    }
+
+    private int slot(int key) {
+        // Fibonacci hashing: the multiply mixes every key bit into the high bits, which spreads
+        // sequential keys across the table. The low bits are only mixed from the key's low bits.
+        return (key * 0x9E3779B9) >>> shift;
+    }
+
+    /**
+     * Find the slot holding {@code key}, or -1 if it isn't in the map.
+     */
+    private int find(int key) {
+        for (int i = slot(key);; i = (i + 1) & mask) {
+            if (values[i] == null) {
+                return -1;
+            }
+            if (keys[i] == key) {
+                return i;
+            }
+        }
+    }
+
+    /**
+     * Get the value for {@code key}, or {@code null} if there is none.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int i = find(key);
+        return i < 0 ? null : (V) values[i];
+    }
+
+    /**
+     * Get the value for {@code key}, or {@code defaultValue} if there is none.
+     */
+    public V getOrDefault(int key, V defaultValue) {
+        V value = get(key);
+        return value == null ? defaultValue : value;
+    }
+
+    /**
+     * Checks if there is a value for {@code key}.
+     */
+    public boolean containsKey(int key) {
+        return find(key) >= 0;
+    }
+
+    /**
+     * Associate {@code value} with {@code key}.
+     *
+     * @return the previous value for {@code key}, or {@code null} if there was none.
+     */
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        Objects.requireNonNull(value, "value");
+        int i = slot(key);
+        for (; values[i] != null; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                V old = (V) values[i];
+                values[i] = value;
+                return old;
+            }
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size * 2 > keys.length) {
+            rehash(keys.length * 2);
+        }
+        return null;
+    }
+
+    /**
+     * Remove the value for {@code key}.
+     *
+     * @return the removed value, or {@code null} if there was none.
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        int i = find(key);
+        if (i < 0) {
+            return null;
+        }
+        V old = (V) values[i];
+        size--;
+        // Shift later entries of the probe run back so lookups never stop at the hole early.
+        int hole = i;
+        for (int j = (i + 1) & mask; values[j] != null; j = (j + 1) & mask) {
+            int home = slot(keys[j]);
+            if (((j - home) & mask) >= ((j - hole) & mask)) {
+                keys[hole] = keys[j];
+                values[hole] = values[j];
+                hole = j;
+            }
+        }
+        values[hole] = null;
+        return old;
+    }
+
+    private void rehash(int tableSize) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(tableSize);
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldValues[j] != null) {
+                int i = slot(oldKeys[j]);
+                while (values[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+    /**
+     * Call {@code consumer} with every mapping, in no particular order. The map must not be
+     * modified during iteration.
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(EntryConsumer<? super V> consumer) {
+        for (int i = 0; i < keys.length; i++) {
+            if (values[i] != null) {
+                consumer.accept(keys[i], (V) values[i]);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of mappings in this map.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks if the map has no mappings.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+}
@@ -1,17 +1,21 @@
 package frc.lib.util;
 
-import java.util.List;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.RandomAccess;
-import frc.lib.profiling.LoggingProfiler;
 
 /**
  * An optimized long array. Used in lieu of an {@code ArrayList<Long>} to avoid boxing (and the
  * performance implications that come with it).
  *
  * <p>
- * Current interface is limited to the methods used by {@link LoggingProfiler}, though its interface
- * may expand in the future to match the full {@link List} interface.
+ * Mirrors the parts of the {@link java.util.List} interface that make sense for primitives.
+ * {@link #getLast()} and {@link #removeLast()}, used for stack-like access, only check that the
+ * list isn't empty.
  */
 public class LongArrayList implements RandomAccess, Cloneable, java.io.Serializable {
     private static final long serialVersionUID = -7046029254386353130L;
@@ -38,6 +42,25 @@ public class LongArrayList implements RandomAccess, Cloneable, java.io.Serializa
         backing = DEFAULT_EMPTY_ARRAY;
     }
 
+    /**
+     * Creates a new array list that can hold {@code capacity} longs before reallocating.
+     */
+    public LongArrayList(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Illegal capacity: " + capacity);
+        }
+        backing = capacity == 0 ? DEFAULT_EMPTY_ARRAY : new long[capacity];
+    }
+
+    /**
+     * Creates a new array list containing {@code values}.
+     */
+    public static LongArrayList of(long... values) {
+        LongArrayList list = new LongArrayList(values.length);
+        list.addAll(values);
+        return list;
+    }
+
     /**
      * Grows this arraylist, ensuring it can contain {@code capacity} longs.
      *
@@ -58,6 +81,13 @@ public class LongArrayList implements RandomAccess, Cloneable, java.io.Serializa
         assert size <= backing.length;
     }
 
+    /**
+     * Ensures this list can hold {@code capacity} longs without reallocating.
+     */
+    public void ensureCapacity(int capacity) {
+        grow(capacity);
+    }
+
     /**
      * Appends {@code k} to the end of this list.
      */
@@ -67,6 +97,43 @@ public class LongArrayList implements RandomAccess, Cloneable, java.io.Serializa
         assert size <= backing.length;
     }
 
+    /**
+     * Inserts {@code k} at position {@code index}, shifting later elements up.
+     */
+    public void add(int index, final long k) {
+        Objects.checkIndex(index, size + 1);
+        grow(size + 1);
+        if (index != size) {
+            System.arraycopy(backing, index, backing, index + 1, size - index);
+        }
+        backing[index] = k;
+        size++;
+    }
+
+    /**
+     * Appends {@code length} elements of {@code values}, starting at {@code offset}.
+     */
+    public void addAll(long[] values, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, values.length);
+        grow(size + length);
+        System.arraycopy(values, offset, backing, size, length);
+        size += length;
+    }
+
+    /**
+     * Appends all of {@code values}.
+     */
+    public void addAll(long... values) {
+        addAll(values, 0, values.length);
+    }
+
+    /**
+     * Appends all elements of {@code other}.
+     */
+    public void addAll(LongArrayList other) {
+        addAll(other.backing, 0, other.size);
+    }
+
     /**
      * Get long element at index {@code index}.
      */
@@ -75,6 +142,30 @@ public class LongArrayList implements RandomAccess, Cloneable, java.io.Serializa
         return backing[index];
     }
 
+    /**
+     * Replace the element at {@code index} with {@code k}.
+     *
+     * @return the previous element.
+     */
+    public long set(int index, final long k) {
+        Objects.checkIndex(index, size);
+        final long old = backing[index];
+        backing[index] = k;
+        return old;
+    }
+
+    /**
+     * Get the last element.
+     *
+     * @throws NoSuchElementException if the list is empty.
+     */
+    public long getLast() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        return backing[size - 1];
+    }
+
     /**
      * Checks if the list has no elements.
      */
@@ -89,6 +180,25 @@ public class LongArrayList implements RandomAccess, Cloneable, java.io.Serializa
         return size;
     }
 
+    /**
+     * Get the index of the first element equal to {@code k}, or -1 if there is none.
+     */
+    public int indexOf(final long k) {
+        for (int i = 0; i < size; i++) {
+            if (backing[i] == k) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Checks if any element is equal to {@code k}.
+     */
+    public boolean contains(final long k) {
+        return indexOf(k) >= 0;
+    }
+
     /**
      * Removes the element at the specified position in this list.
      */
@@ -98,16 +208,85 @@ public class LongArrayList implements RandomAccess, Cloneable, java.io.Serializa
         final long old = a[index];
         size--;
         if (index != size) {
-            System.arraycopy(a, index + 1, a, index, size);
+            System.arraycopy(a, index + 1, a, index, size - index);
         }
         assert size <= a.length;
         return old;
     }
 
+    /**
+     * Removes and returns the last element.
+     *
+     * @throws NoSuchElementException if the list is empty.
+     */
+    public long removeLast() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        return backing[--size];
+    }
+
+    /**
+     * Removes the elements from {@code fromIndex} (inclusive) to {@code toIndex} (exclusive).
+     */
+    public void removeRange(int fromIndex, int toIndex) {
+        Objects.checkFromToIndex(fromIndex, toIndex, size);
+        System.arraycopy(backing, toIndex, backing, fromIndex, size - toIndex);
+        size -= toIndex - fromIndex;
+    }
+
     public void clear() {
         this.size = 0;
     }
 
+    /**
+     * Copies the elements of this list into a new array.
+     */
+    public long[] toArray() {
+        return Arrays.copyOf(backing, size);
+    }
+
+    /**
+     * Copies the elements of this list into {@code dest}, starting at {@code destOffset}.
+     */
+    public void toArray(long[] dest, int destOffset) {
+        System.arraycopy(backing, 0, dest, destOffset, size);
+    }
+
+    @Override
+    public LongArrayList clone() {
+        try {
+            LongArrayList copy = (LongArrayList) super.clone();
+            copy.backing = size == 0 ? DEFAULT_EMPTY_ARRAY : Arrays.copyOf(backing, size);
+            return copy;
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    /**
+     * Writes the size followed by only the elements in use, not the spare capacity.
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        for (int i = 0; i < size; i++) {
+            out.writeLong(backing[i]);
+        }
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        backing = size == 0 ? DEFAULT_EMPTY_ARRAY : new long[size];
+        for (int i = 0; i < size; i++) {
+            backing[i] = in.readLong();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+
     private static long[] forceCapacity(final long[] array, final int length, final int preserve) {
         final long[] newArray = new long[length];
         System.arraycopy(array, 0, newArray, 0, preserve);
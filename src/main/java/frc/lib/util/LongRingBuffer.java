@@ -0,0 +1,150 @@
+package frc.lib.util;
+
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * A fixed-capacity FIFO of longs backed by a preallocated array. Once full, adding a value
+ * overwrites the oldest one, so the buffer always holds the most recent {@link #capacity()} values.
+ * Never allocates after construction.
+ *
+ * <p>
+ * Index 0 is the oldest value and {@code size() - 1} the newest.
+ */
+public class LongRingBuffer {
+    private final long[] backing;
+    private int head;
+    private int size;
+
+    /**
+     * Creates an empty ring buffer holding at most {@code capacity} values.
+     */
+    public LongRingBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Illegal capacity: " + capacity);
+        }
+        backing = new long[capacity];
+    }
+
+    /**
+     * Appends {@code value}, overwriting the oldest value if the buffer is full.
+     */
+    public void add(long value) {
+        int tail = head + size;
+        if (tail >= backing.length) {
+            tail -= backing.length;
+        }
+        backing[tail] = value;
+        if (size == backing.length) {
+            head = head + 1 == backing.length ? 0 : head + 1;
+        } else {
+            size++;
+        }
+    }
+
+    /**
+     * Get the value at {@code index}, where 0 is the oldest.
+     */
+    public long get(int index) {
+        Objects.checkIndex(index, size);
+        int i = head + index;
+        return backing[i >= backing.length ? i - backing.length : i];
+    }
+
+    /**
+     * Get the oldest value.
+     *
+     * @throws NoSuchElementException if the buffer is empty.
+     */
+    public long getFirst() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        return backing[head];
+    }
+
+    /**
+     * Get the newest value.
+     *
+     * @throws NoSuchElementException if the buffer is empty.
+     */
+    public long getLast() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        int i = head + size - 1;
+        return backing[i >= backing.length ? i - backing.length : i];
+    }
+
+    /**
+     * Removes and returns the oldest value.
+     *
+     * @throws NoSuchElementException if the buffer is empty.
+     */
+    public long removeFirst() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        long value = backing[head];
+        head = head + 1 == backing.length ? 0 : head + 1;
+        size--;
+        return value;
+    }
+
+    /**
+     * Removes and returns the newest value.
+     *
+     * @throws NoSuchElementException if the buffer is empty.
+     */
+    public long removeLast() {
+        long value = getLast();
+        size--;
+        return value;
+    }
+
+    /**
+     * Copies the values, oldest first, into {@code dest} starting at {@code destOffset}.
+     *
+     * @return the number of values copied.
+     */
+    public int toArray(long[] dest, int destOffset) {
+        Objects.checkFromIndexSize(destOffset, size, dest.length);
+        int firstPart = Math.min(size, backing.length - head);
+        System.arraycopy(backing, head, dest, destOffset, firstPart);
+        System.arraycopy(backing, 0, dest, destOffset + firstPart, size - firstPart);
+        return size;
+    }
+
+    /**
+     * Number of values in the buffer.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Maximum number of values the buffer holds.
+     */
+    public int capacity() {
+        return backing.length;
+    }
+
+    /**
+     * Checks if the buffer has no values.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Checks if the next {@link #add(long) add} will overwrite the oldest value.
+     */
+    public boolean isFull() {
+        return size == backing.length;
+    }
+
+    public void clear() {
+        head = 0;
+        size = 0;
+    }
+}
@@ -0,0 +1,209 @@
+package frc.lib.util;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+
+/**
+ * A time-indexed history of robot poses and field-relative velocities, for looking up where the
+ * robot was at a past timestamp or will be shortly after the newest one.
+ *
+ * <p>
+ * Backed by one preallocated {@link DoubleRingBuffer} per field, so adding samples and looking them
+ * up never allocates. Lookups between two samples interpolate linearly (the heading along the
+ * shorter way around) and find the samples by binary search. Lookups after the newest sample
+ * extrapolate at its velocity, up to a limited horizon. Lookups before the oldest sample return
+ * the oldest sample.
+ *
+ * <p>
+ * Only used from the main thread.
+ */
+public class PoseHistory {
+    private final DoubleRingBuffer timestamps;
+    private final DoubleRingBuffer xs;
+    private final DoubleRingBuffer ys;
+    private final DoubleRingBuffer thetas;
+    private final DoubleRingBuffer vxs;
+    private final DoubleRingBuffer vys;
+    private final DoubleRingBuffer omegas;
+    private final double maxExtrapolation;
+
+    /**
+     * @param capacity number of samples kept.
+     * @param maxExtrapolation how far past the newest sample to extrapolate, in seconds. Later
+     *        lookups are extrapolated this far and no further.
+     */
+    public PoseHistory(int capacity, double maxExtrapolation) {
+        this.timestamps = new DoubleRingBuffer(capacity);
+        this.xs = new DoubleRingBuffer(capacity);
+        this.ys = new DoubleRingBuffer(capacity);
+        this.thetas = new DoubleRingBuffer(capacity);
+        this.vxs = new DoubleRingBuffer(capacity);
+        this.vys = new DoubleRingBuffer(capacity);
+        this.omegas = new DoubleRingBuffer(capacity);
+        this.maxExtrapolation = maxExtrapolation;
+    }
+
+    /**
+     * Add a sample. Samples must be added in time order; one not newer than the newest sample is
+     * ignored.
+     *
+     * @param timestamp time of the sample, in seconds.
+     * @param x field x in meters.
+     * @param y field y in meters.
+     * @param theta heading in radians.
+     * @param vx field-relative x velocity in meters per second.
+     * @param vy field-relative y velocity in meters per second.
+     * @param omega angular velocity in radians per second.
+     */
+    public void add(double timestamp, double x, double y, double theta, double vx, double vy,
+        double omega) {
+        if (!timestamps.isEmpty() && timestamp <= timestamps.getLast()) {
+            return;
+        }
+        timestamps.add(timestamp);
+        xs.add(x);
+        ys.add(y);
+        thetas.add(theta);
+        vxs.add(vx);
+        vys.add(vy);
+        omegas.add(omega);
+    }
+
+    /**
+     * Replace the newest sample's pose, keeping its time and velocity, e.g. after a vision
+     * measurement corrected the estimate at that time. Does nothing if the history is empty.
+     *
+     * @param x field x in meters.
+     * @param y field y in meters.
+     * @param theta heading in radians.
+     */
+    public void replaceNewestPose(double x, double y, double theta) {
+        if (timestamps.isEmpty()) {
+            return;
+        }
+        xs.removeLast();
+        xs.add(x);
+        ys.removeLast();
+        ys.add(y);
+        thetas.removeLast();
+        thetas.add(theta);
+    }
+
+    /**
+     * Look up the robot's state at {@code timestamp}.
+     *
+     * @param timestamp time in seconds.
+     * @param out written with the state at {@code timestamp}. Its timestamp is the time actually
+     *        looked up, which differs from {@code timestamp} when it was clamped.
+     * @return {@code false}, leaving {@code out} untouched, if the history is empty.
+     */
+    public boolean get(double timestamp, Sample out) {
+        int size = timestamps.size();
+        if (size == 0) {
+            return false;
+        }
+        int newest = size - 1;
+        double newestTime = timestamps.get(newest);
+        if (timestamp >= newestTime) {
+            double dt = Math.min(timestamp - newestTime, maxExtrapolation);
+            out.timestamp = newestTime + dt;
+            out.x = xs.get(newest) + vxs.get(newest) * dt;
+            out.y = ys.get(newest) + vys.get(newest) * dt;
+            out.theta = MathUtil.angleModulus(thetas.get(newest) + omegas.get(newest) * dt);
+            out.vx = vxs.get(newest);
+            out.vy = vys.get(newest);
+            out.omega = omegas.get(newest);
+            return true;
+        }
+        if (timestamp <= timestamps.get(0)) {
+            copy(0, out);
+            return true;
+        }
+        // First sample after timestamp. Exists and isn't 0, by the checks above.
+        int low = 1;
+        int high = newest;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (timestamps.get(mid) <= timestamp) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        int before = low - 1;
+        double t0 = timestamps.get(before);
+        double t = (timestamp - t0) / (timestamps.get(low) - t0);
+        double theta0 = thetas.get(before);
+        out.timestamp = timestamp;
+        out.x = lerp(xs, before, t);
+        out.y = lerp(ys, before, t);
+        out.theta =
+            MathUtil.angleModulus(theta0 + MathUtil.angleModulus(thetas.get(low) - theta0) * t);
+        out.vx = lerp(vxs, before, t);
+        out.vy = lerp(vys, before, t);
+        out.omega = lerp(omegas, before, t);
+        return true;
+    }
+
+    private static double lerp(DoubleRingBuffer values, int before, double t) {
+        return MathUtil.interpolate(values.get(before), values.get(before + 1), t);
+    }
+
+    private void copy(int index, Sample out) {
+        out.timestamp = timestamps.get(index);
+        out.x = xs.get(index);
+        out.y = ys.get(index);
+        out.theta = thetas.get(index);
+        out.vx = vxs.get(index);
+        out.vy = vys.get(index);
+        out.omega = omegas.get(index);
+    }
+
+    /**
+     * Get the number of samples.
+     */
+    public int size() {
+        return timestamps.size();
+    }
+
+    /**
+     * Get whether there are no samples.
+     */
+    public boolean isEmpty() {
+        return timestamps.isEmpty();
+    }
+
+    /**
+     * Remove every sample, e.g. after the pose is reset.
+     */
+    public void clear() {
+        timestamps.clear();
+        xs.clear();
+        ys.clear();
+        thetas.clear();
+        vxs.clear();
+        vys.clear();
+        omegas.clear();
+    }
+
+    /**
+     * The robot's state at one time. Mutable, so one instance can be reused for every lookup.
+     */
+    public static class Sample {
+        public double timestamp;
+        public double x;
+        public double y;
+        public double theta;
+        public double vx;
+        public double vy;
+        public double omega;
+
+        /**
+         * Get the pose. Allocates.
+         */
+        public Pose2d toPose2d() {
+            return new Pose2d(x, y, new Rotation2d(theta));
+        }
+    }
+}
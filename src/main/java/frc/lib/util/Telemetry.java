@@ -0,0 +1,135 @@
+package frc.lib.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.littletonrobotics.junction.Logger;
+import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.wpilibj.RobotController;
+
+/**
+ * Dashboard numbers that are cheap to set every loop, as a replacement for
+ * {@code SmartDashboard.putNumber}.
+ *
+ * <p>
+ * Entries are created once, with their keys and topics looked up up front. Setting an entry only
+ * stores the value and records it to the AdvantageKit log, so the log still has every loop's
+ * value. Publishing to NetworkTables is done in one pass by {@link #flush()}, once per loop, and
+ * each entry is only published if its period has elapsed and it moved by more than its threshold
+ * since it was last published.
+ *
+ * <p>
+ * Only used from the main thread.
+ */
+public final class Telemetry {
+    /** Default time between publishes of an entry, in seconds. */
+    public static final double DEFAULT_PERIOD = 0.1;
+
+    private static final NetworkTable TABLE =
+        NetworkTableInstance.getDefault().getTable("SmartDashboard");
+    private static final List<NumberEntry> entries = new ArrayList<>();
+    private static NumberEntry[] entryArray = new NumberEntry[0];
+
+    private Telemetry() {}
+
+    /**
+     * Create a number under {@code SmartDashboard/<key>}, logged under {@code Telemetry/<key>}.
+     */
+    public static NumberEntry number(String key) {
+        return number(key, "Telemetry/" + key);
+    }
+
+    /**
+     * Create a number under {@code SmartDashboard/<key>}, logged under {@code logKey}.
+     */
+    public static NumberEntry number(String key, String logKey) {
+        NumberEntry entry = new NumberEntry(TABLE.getDoubleTopic(key).publish(), logKey);
+        entries.add(entry);
+        entryArray = entries.toArray(NumberEntry[]::new);
+        return entry;
+    }
+
+    /**
+     * Publish every entry that is due. Call once per loop.
+     */
+    public static void flush() {
+        long now = RobotController.getFPGATime();
+        for (NumberEntry entry : entryArray) {
+            entry.flush(now);
+        }
+    }
+
+    /**
+     * A number published to the dashboard.
+     */
+    public static final class NumberEntry {
+        private final DoublePublisher publisher;
+        private final String logKey;
+        private long periodMicros = (long) (DEFAULT_PERIOD * 1e6);
+        private double threshold = 0.0;
+
+        private double value;
+        private boolean hasValue = false;
+        private double published;
+        private boolean hasPublished = false;
+        private long lastPublishTime;
+
+        private NumberEntry(DoublePublisher publisher, String logKey) {
+            this.publisher = publisher;
+            this.logKey = logKey;
+        }
+
+        /**
+         * Set the minimum time between publishes.
+         *
+         * @param seconds time in seconds, or 0 to publish every loop the value changes.
+         * @return this entry
+         */
+        public NumberEntry withPeriod(double seconds) {
+            this.periodMicros = (long) (seconds * 1e6);
+            return this;
+        }
+
+        /**
+         * Set how far the value has to move from the last published value to be published again.
+         *
+         * @param threshold absolute change, in the value's units.
+         * @return this entry
+         */
+        public NumberEntry withThreshold(double threshold) {
+            this.threshold = threshold;
+            return this;
+        }
+
+        /**
+         * Set the value. It is logged now and published on a later {@link Telemetry#flush()}.
+         */
+        public void set(double value) {
+            this.value = value;
+            this.hasValue = true;
+            Logger.recordOutput(logKey, value);
+        }
+
+        private void flush(long now) {
+            if (!hasValue) {
+                return;
+            }
+            if (hasPublished) {
+                if (now - lastPublishTime < periodMicros) {
+                    return;
+                }
+                // NaN compares false with everything, so check it separately.
+                boolean unchanged = Double.isNaN(value) ? Double.isNaN(published)
+                    : Math.abs(value - published) <= threshold;
+                if (unchanged) {
+                    return;
+                }
+            }
+            publisher.set(value);
+            published = value;
+            hasPublished = true;
+            lastPublishTime = now;
+        }
+    }
+}
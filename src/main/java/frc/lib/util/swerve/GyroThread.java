@@ -0,0 +1,100 @@
+package frc.lib.util.swerve;
+
+import com.studica.frc.AHRS;
+import edu.wpi.first.wpilibj.RobotController;
+
+/**
+ * Samples a NavX on its own thread at the rate the NavX produces data, instead of once per loop.
+ *
+ * <p>
+ * The thread polls the NavX at a few times its update rate and records a sample whenever the
+ * sensor timestamp advances, stamped with the FPGA time it was seen at. Samples go into fixed-size
+ * ring buffers with the same single-writer scheme as {@link OdometryThread}: the count of written
+ * samples is volatile and only this thread increments it, so the main loop can
+ * {@link #drain(Samples) drain} without locks.
+ */
+public class GyroThread extends Thread {
+    /** Number of samples kept. At 200 Hz this covers a 500 ms loop overrun. */
+    private static final int CAPACITY = 100;
+    /** How many times per NavX update the sensor is polled. */
+    private static final int POLLS_PER_UPDATE = 4;
+
+    private final AHRS gyro;
+    private final double[] timestamps = new double[CAPACITY];
+    private final double[] yaws = new double[CAPACITY];
+    private final double[] yawRates = new double[CAPACITY];
+
+    /** Number of samples written. Only incremented by this thread. */
+    private volatile long written = 0;
+    /** Number of samples drained. Only touched by the main thread. */
+    private long read = 0;
+
+    /**
+     * @param gyro the NavX to sample.
+     */
+    public GyroThread(AHRS gyro) {
+        super("Gyro");
+        this.gyro = gyro;
+        setDaemon(true);
+        setPriority(Thread.MAX_PRIORITY);
+    }
+
+    @Override
+    public void run() {
+        long lastSensorTimestamp = Long.MIN_VALUE;
+        while (!isInterrupted()) {
+            int rate = Math.max(gyro.getActualUpdateRate(), 1);
+            long periodMicros = Math.max(1_000_000L / (rate * POLLS_PER_UPDATE), 1_000L);
+            try {
+                Thread.sleep(periodMicros / 1000, (int) (periodMicros % 1000) * 1000);
+            } catch (InterruptedException e) {
+                return;
+            }
+            long sensorTimestamp = gyro.getLastSensorTimestamp();
+            if (sensorTimestamp == lastSensorTimestamp || !gyro.isConnected()) {
+                continue;
+            }
+            lastSensorTimestamp = sensorTimestamp;
+            long count = written;
+            int slot = (int) (count % CAPACITY);
+            timestamps[slot] = RobotController.getFPGATime() / 1e6;
+            yaws[slot] = gyro.getYaw();
+            yawRates[slot] = gyro.getRate();
+            // Publishing the count makes the whole sample visible to the main thread.
+            written = count + 1;
+        }
+    }
+
+    /**
+     * Take the samples since the last drain, oldest first. If the main loop fell more than
+     * {@link #CAPACITY} samples behind, only the newest ones are returned. Call from the main
+     * thread only.
+     *
+     * @param out written with the samples
+     */
+    public void drain(Samples out) {
+        long end = written;
+        long start = Math.max(read, end - CAPACITY);
+        int count = (int) (end - start);
+        out.timestamps = new double[count];
+        out.yaws = new double[count];
+        out.yawRates = new double[count];
+        for (int i = 0; i < count; i++) {
+            int slot = (int) ((start + i) % CAPACITY);
+            out.timestamps[i] = timestamps[slot];
+            out.yaws[i] = yaws[slot];
+            out.yawRates[i] = yawRates[slot];
+        }
+        read = end;
+    }
+
+    /**
+     * Gyro samples, in the NavX's units: yaw in degrees and yaw rate in degrees per second.
+     */
+    public static class Samples {
+        /** FPGA seconds. */
+        public double[] timestamps = new double[] {};
+        public double[] yaws = new double[] {};
+        public double[] yawRates = new double[] {};
+    }
+}
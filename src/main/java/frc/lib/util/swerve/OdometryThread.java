@@ -0,0 +1,178 @@
+package frc.lib.util.swerve;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.DoubleSupplier;
+import com.ctre.phoenix6.BaseStatusSignal;
+import com.ctre.phoenix6.StatusSignal;
+import edu.wpi.first.wpilibj.RobotController;
+
+/**
+ * Samples odometry sources (drive and steer positions, gyro yaw) at a higher rate than the main
+ * loop, so the pose estimator can apply every sample with its own timestamp.
+ *
+ * <p>
+ * When any Phoenix signals are registered, the thread waits for them to arrive together with
+ * {@link BaseStatusSignal#waitForAll(double, BaseStatusSignal...) waitForAll}, which keeps samples
+ * in step with the CAN frames. Otherwise it just sleeps for one period.
+ *
+ * <p>
+ * Samples are stored in fixed-size ring buffers shared by every registered source, without locks:
+ * this thread is the only writer and publishes each complete sample by incrementing a volatile
+ * counter. The main loop calls {@link #latch()} once, then {@link Samples#drain() drains} each
+ * source up to the latched sample, so every source returns the same number of samples even if
+ * the thread keeps sampling in between.
+ */
+public class OdometryThread extends Thread {
+    /** Number of samples kept. At 250 Hz this covers a 400 ms loop overrun. */
+    private static final int CAPACITY = 100;
+
+    private final double frequency;
+    private final List<BaseStatusSignal> phoenixSignals = new ArrayList<>();
+    private final List<DoubleSupplier> sources = new ArrayList<>();
+    private final List<Samples> samples = new ArrayList<>();
+    private final double[] timestamps = new double[CAPACITY];
+    private BaseStatusSignal[] signalArray;
+    private DoubleSupplier[] sourceArray;
+    private double[][] valueArrays;
+
+    /** Number of samples written. Only incremented by this thread. */
+    private volatile long written = 0;
+    /** Number of samples visible to {@link Samples#drain()}. Only touched by the main thread. */
+    private long latched = 0;
+
+    /**
+     * @param frequency sampling rate in Hz.
+     */
+    public OdometryThread(double frequency) {
+        super("Odometry");
+        this.frequency = frequency;
+        setDaemon(true);
+        setPriority(Thread.MAX_PRIORITY);
+    }
+
+    /**
+     * Sample a Phoenix signal. The signal is cloned, so the caller can keep refreshing its own
+     * copy from the main loop.
+     */
+    public Samples registerSignal(StatusSignal<?> signal) {
+        checkNotStarted();
+        StatusSignal<?> copy = signal.clone();
+        phoenixSignals.add(copy);
+        return registerSupplier(copy::getValueAsDouble);
+    }
+
+    /**
+     * Sample a non-Phoenix source, e.g. a NavX. {@code source} is called from this thread.
+     */
+    public Samples registerSupplier(DoubleSupplier source) {
+        checkNotStarted();
+        Samples queue = new Samples(new double[CAPACITY]);
+        sources.add(source);
+        samples.add(queue);
+        return queue;
+    }
+
+    /**
+     * Get the timestamps, in FPGA seconds, of the samples. Each caller gets its own queue, to be
+     * drained alongside its other samples.
+     */
+    public Samples timestamps() {
+        return new Samples(timestamps);
+    }
+
+    private void checkNotStarted() {
+        if (getState() != State.NEW) {
+            throw new IllegalStateException("Odometry sources must be registered before start().");
+        }
+    }
+
+    @Override
+    public synchronized void start() {
+        signalArray = phoenixSignals.toArray(BaseStatusSignal[]::new);
+        sourceArray = sources.toArray(DoubleSupplier[]::new);
+        valueArrays = new double[samples.size()][];
+        for (int i = 0; i < valueArrays.length; i++) {
+            valueArrays[i] = samples.get(i).values;
+        }
+        if (signalArray.length > 0) {
+            BaseStatusSignal.setUpdateFrequencyForAll(frequency, signalArray);
+        }
+        super.start();
+    }
+
+    @Override
+    public void run() {
+        long periodMillis = Math.round(1000.0 / frequency);
+        while (!isInterrupted()) {
+            if (signalArray.length > 0) {
+                BaseStatusSignal.waitForAll(2.0 / frequency, signalArray);
+            } else {
+                try {
+                    Thread.sleep(periodMillis);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+            long count = written;
+            int slot = (int) (count % CAPACITY);
+            timestamps[slot] = RobotController.getFPGATime() / 1e6 - averageLatency();
+            for (int i = 0; i < sourceArray.length; i++) {
+                valueArrays[i][slot] = sourceArray[i].getAsDouble();
+            }
+            // Publishing the count makes the whole sample visible to the main thread.
+            written = count + 1;
+        }
+    }
+
+    /**
+     * Average time since the registered Phoenix signals were received, so the sample is stamped
+     * with when it was measured rather than when this thread woke up.
+     */
+    private double averageLatency() {
+        if (signalArray.length == 0) {
+            return 0.0;
+        }
+        double total = 0.0;
+        for (BaseStatusSignal signal : signalArray) {
+            total += signal.getTimestamp().getLatency();
+        }
+        return total / signalArray.length;
+    }
+
+    /**
+     * Make every sample taken so far available to {@link Samples#drain()}. Call once per loop on
+     * the main thread, before draining any source.
+     */
+    public void latch() {
+        latched = written;
+    }
+
+    /**
+     * The samples of one source. Only used from the main thread.
+     */
+    public final class Samples {
+        private final double[] values;
+        private long read = 0;
+
+        private Samples(double[] values) {
+            this.values = values;
+        }
+
+        /**
+         * Take the samples since the last drain, up to the last {@link OdometryThread#latch()
+         * latch}, oldest first. If the main loop fell more than {@link #CAPACITY} samples behind,
+         * only the newest ones are returned.
+         */
+        public double[] drain() {
+            long end = latched;
+            long start = Math.max(read, end - CAPACITY);
+            double[] drained = new double[(int) (end - start)];
+            for (int i = 0; i < drained.length; i++) {
+                drained[i] = values[(int) ((start + i) % CAPACITY)];
+            }
+            read = end;
+            return drained;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package frc.lib.util.swerve;
+
+import java.util.Arrays;
+import com.ctre.phoenix6.BaseStatusSignal;
+import com.ctre.phoenix6.StatusCode;
+import org.littletonrobotics.junction.Logger;
+
+/**
+ * Collects the Phoenix status signals of a whole drive, so they are refreshed with a single
+ * {@link BaseStatusSignal#refreshAll(BaseStatusSignal...) refreshAll} per loop instead of one
+ * blocking call per device.
+ *
+ * <p>
+ * Every signal must be on the same CAN bus. Devices register their signals on construction, the
+ * owner calls {@link #refresh()} at the start of each loop, and devices then read the refreshed
+ * values with {@code getValue()} without refreshing again.
+ */
+public class SignalRegistry {
+    private final String name;
+    private BaseStatusSignal[] signals = new BaseStatusSignal[0];
+
+    /**
+     * @param name name to log refresh errors under.
+     */
+    public SignalRegistry(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Add signals to be refreshed by {@link #refresh()}.
+     */
+    public void register(BaseStatusSignal... newSignals) {
+        int oldLength = signals.length;
+        signals = Arrays.copyOf(signals, oldLength + newSignals.length);
+        System.arraycopy(newSignals, 0, signals, oldLength, newSignals.length);
+    }
+
+    /**
+     * Refresh every registered signal in one call.
+     */
+    public void refresh() {
+        if (signals.length == 0) {
+            return;
+        }
+        StatusCode status = BaseStatusSignal.refreshAll(signals);
+        Logger.recordOutput(name + "/SignalStatus", status.getName());
+    }
+}
@@ -1,14 +1,18 @@
 package frc.lib.util.swerve;
 
-import static edu.wpi.first.units.Units.Meters;
+import static edu.wpi.first.units.Units.Radians;
 import static edu.wpi.first.units.Units.Rotations;
 import static edu.wpi.first.units.Units.RotationsPerSecond;
+import org.littletonrobotics.junction.LoggedRobot;
 import org.littletonrobotics.junction.Logger;
+import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.kinematics.SwerveModulePosition;
 import edu.wpi.first.math.kinematics.SwerveModuleState;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import edu.wpi.first.math.util.Units;
 import frc.lib.math.Conversions;
+import frc.lib.math.InPlaceSwerveKinematics;
+import frc.lib.util.Telemetry;
 import frc.robot.Constants;
 
 /**
@@ -21,6 +25,12 @@ public class SwerveModule {
 
     private SwerveModuleIO io;
     private SwerveModuleInputsAutoLogged inputs = new SwerveModuleInputsAutoLogged();
+    // Built once so logging doesn't concatenate strings every loop.
+    private final String inputsKey;
+    private final Telemetry.NumberEntry desiredSpeed;
+    private final Telemetry.NumberEntry desiredAngle;
+    /** Speed set on the previous tick, for the acceleration feedforward. */
+    private double lastSpeed = 0.0;
 
     /**
      * Swerve Module
@@ -35,20 +45,21 @@ public class SwerveModule {
 
         this.angleOffset = angleOffset;
 
+        this.inputsKey = "SwerveModule" + moduleNumber;
+        this.desiredSpeed = Telemetry.number("desired state speed/" + moduleNumber);
+        this.desiredAngle = Telemetry.number("desired state angle/" + moduleNumber);
+
         // lastAngle = getState().angle.getDegrees();
         io.updateInputs(inputs);
-        Logger.processInputs("SwerveModule" + moduleNumber, inputs);
+        Logger.processInputs(inputsKey, inputs);
     }
 
     /**
      * Update inputs for a Swerve Module.
      */
     public void periodic() {
-        // Robot.profiler.push("updateInputs");
         io.updateInputs(inputs);
-        // Robot.profiler.swap("processInputs");
-        Logger.processInputs("SwerveModule" + moduleNumber, inputs);
-        // Robot.profiler.pop();
+        Logger.processInputs(inputsKey, inputs);
     }
 
     /**
@@ -58,28 +69,50 @@ public class SwerveModule {
      * @param isOpenLoop Whether the state should be open or closed loop controlled
      */
     public void setDesiredState(SwerveModuleState desiredState, boolean isOpenLoop) {
-        desiredState.optimize(getState().angle);
-        io.setAngleMotor(desiredState.angle.getRotations());
-        setSpeed(desiredState, isOpenLoop);
-        SmartDashboard.putNumber("desired state speed/" + moduleNumber,
-            desiredState.speedMetersPerSecond);
-        SmartDashboard.putNumber("desired state angle/" + moduleNumber,
-            desiredState.angle.getDegrees());
+        setDesiredState(desiredState.speedMetersPerSecond, desiredState.angle.getRadians(),
+            isOpenLoop);
+    }
+
+    /**
+     * Set the desired state of the Swerve Module without allocating
+     *
+     * @param speedMetersPerSecond The desired speed in meters per second
+     * @param angleRadians The desired angle in radians
+     * @param isOpenLoop Whether the state should be open or closed loop controlled
+     */
+    public void setDesiredState(double speedMetersPerSecond, double angleRadians,
+        boolean isOpenLoop) {
+        // Same as SwerveModuleState.optimize: never turn more than 90 degrees, drive backwards
+        // instead.
+        double delta = MathUtil.angleModulus(angleRadians - getAngleRadians());
+        if (Math.abs(delta) > Math.PI / 2.0) {
+            speedMetersPerSecond = -speedMetersPerSecond;
+            angleRadians = MathUtil.angleModulus(angleRadians + Math.PI);
+        }
+        io.setAngleMotor(Units.radiansToRotations(angleRadians));
+        setSpeed(speedMetersPerSecond, isOpenLoop);
+        desiredSpeed.set(speedMetersPerSecond);
+        desiredAngle.set(Units.radiansToDegrees(angleRadians));
     }
 
     /**
      * Set the velocity or power of the drive motor
      *
-     * @param desiredState The desired {@link SwerveModuleState} of the module
+     * @param speedMetersPerSecond The desired speed in meters per second
      * @param isOpenLoop Whether the state should be open or closed loop controlled
      */
-    private void setSpeed(SwerveModuleState desiredState, boolean isOpenLoop) {
+    private void setSpeed(double speedMetersPerSecond, boolean isOpenLoop) {
         if (isOpenLoop) {
-            double power = desiredState.speedMetersPerSecond / Constants.Swerve.maxSpeed;
+            double power = speedMetersPerSecond / Constants.Swerve.maxSpeed;
             io.setDriveMotorPower(power);
         } else {
-            io.setDriveMotor(desiredState.speedMetersPerSecond);
+            // Clamped so a step in the requested speed doesn't become a huge torque request.
+            double acceleration = MathUtil.clamp(
+                (speedMetersPerSecond - lastSpeed) / LoggedRobot.defaultPeriodSecs,
+                -Constants.Swerve.maxModuleAcceleration, Constants.Swerve.maxModuleAcceleration);
+            io.setDriveMotor(speedMetersPerSecond, acceleration);
         }
+        lastSpeed = speedMetersPerSecond;
     }
 
     /**
@@ -91,17 +124,57 @@ public class SwerveModule {
         return Rotation2d.fromRotations(inputs.absolutePositionAngleEncoder.in(Rotations));
     }
 
+    /**
+     * Get the current speed of the module
+     *
+     * @return The speed in meters per second
+     */
+    public double getSpeedMetersPerSecond() {
+        return Conversions.rotationPerSecondToMetersPerSecond(
+            inputs.driveMotorSelectedSensorVelocity.in(RotationsPerSecond),
+            Constants.Swerve.wheelCircumferenceMeters);
+    }
+
+    /**
+     * Get the current distance driven by the module, from the drive motor's position. Before the
+     * odometry thread this read the drive velocity instead, so poses replayed from older logs
+     * differ from what those logs recorded.
+     *
+     * @return The distance in meters
+     */
+    public double getDistanceMeters() {
+        return Conversions.rotationsToMeters(inputs.driveMotorSelectedPosition.in(Rotations),
+            Constants.Swerve.wheelCircumferenceMeters);
+    }
+
+    /**
+     * Get the current angle of the module
+     *
+     * @return The angle in radians
+     */
+    public double getAngleRadians() {
+        return inputs.angleMotorSelectedPosition.in(Radians);
+    }
+
     /**
      * Get the current Swerve Module State
      *
      * @return The current {@link SwerveModuleState}
      */
     public SwerveModuleState getState() {
-        return new SwerveModuleState(
-            Conversions.rotationPerSecondToMetersPerSecond(
-                inputs.driveMotorSelectedSensorVelocity.in(RotationsPerSecond),
-                Constants.Swerve.wheelCircumference.in(Meters)),
-            Rotation2d.fromRotations(inputs.angleMotorSelectedPosition.in(Rotations)));
+        return getState(new SwerveModuleState());
+    }
+
+    /**
+     * Write the current Swerve Module State into {@code state}
+     *
+     * @param state The {@link SwerveModuleState} to update
+     * @return {@code state}
+     */
+    public SwerveModuleState getState(SwerveModuleState state) {
+        state.speedMetersPerSecond = getSpeedMetersPerSecond();
+        state.angle = InPlaceSwerveKinematics.updateRotation(state.angle, getAngleRadians());
+        return state;
     }
 
     /**
@@ -110,10 +183,45 @@ public class SwerveModule {
      * @return The current {@link SwerveModulePosition}
      */
     public SwerveModulePosition getPosition() {
-        return new SwerveModulePosition(
-            Conversions.rotationsToMeters(
-                inputs.driveMotorSelectedSensorVelocity.in(RotationsPerSecond),
-                Constants.Swerve.wheelCircumference.in(Meters)),
-            Rotation2d.fromRotations(inputs.angleMotorSelectedPosition.in(Rotations)));
+        return getPosition(new SwerveModulePosition());
+    }
+
+    /**
+     * Write the current Swerve Module Position into {@code position}
+     *
+     * @param position The {@link SwerveModulePosition} to update
+     * @return {@code position}
+     */
+    public SwerveModulePosition getPosition(SwerveModulePosition position) {
+        position.distanceMeters = getDistanceMeters();
+        position.angle = InPlaceSwerveKinematics.updateRotation(position.angle, getAngleRadians());
+        return position;
+    }
+
+    /**
+     * Get the number of odometry samples taken since the last loop.
+     *
+     * @return The number of samples available to
+     *         {@link #getOdometryPosition(int, SwerveModulePosition)}
+     */
+    public int getOdometrySampleCount() {
+        return Math.min(inputs.odometryDrivePositions.length,
+            inputs.odometryAnglePositions.length);
+    }
+
+    /**
+     * Write the Swerve Module Position at an odometry sample taken since the last loop into
+     * {@code position}
+     *
+     * @param sample Index of the sample, oldest first
+     * @param position The {@link SwerveModulePosition} to update
+     * @return {@code position}
+     */
+    public SwerveModulePosition getOdometryPosition(int sample, SwerveModulePosition position) {
+        position.distanceMeters = Conversions.rotationsToMeters(
+            inputs.odometryDrivePositions[sample], Constants.Swerve.wheelCircumferenceMeters);
+        position.angle = InPlaceSwerveKinematics.updateRotation(position.angle,
+            Units.rotationsToRadians(inputs.odometryAnglePositions[sample]));
+        return position;
     }
 }
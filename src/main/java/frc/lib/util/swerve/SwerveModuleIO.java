@@ -14,7 +14,25 @@ public interface SwerveModuleIO {
         public AngularVelocity driveMotorSelectedSensorVelocity;
         public Angle angleMotorSelectedPosition;
         public Angle absolutePositionAngleEncoder;
-        public double[] odometryTimestamps;
+        /**
+         * Timestamps of the values above, in seconds, from the source named by
+         * {@link #timestampSource}.
+         */
+        public double driveMotorPositionTimestamp;
+        public double driveMotorVelocityTimestamp;
+        public double angleMotorPositionTimestamp;
+        public double absolutePositionTimestamp;
+        /**
+         * Where the timestamps come from: "Device" with Phoenix Pro, otherwise "CANivore" or
+         * "System" receive times.
+         */
+        public String timestampSource = "";
+        /** FPGA seconds of each odometry sample since the last loop. */
+        public double[] odometryTimestamps = new double[] {};
+        /** Wheel rotations at each odometry sample. */
+        public double[] odometryDrivePositions = new double[] {};
+        /** Module angle in rotations at each odometry sample. */
+        public double[] odometryAnglePositions = new double[] {};
         // public double driveMotorTemp;
         // public double angleMotorTemp;
     }
@@ -25,6 +43,16 @@ public interface SwerveModuleIO {
 
     public default void setDriveMotor(double mps) {}
 
+    /**
+     * Set the drive velocity with an acceleration feedforward.
+     *
+     * @param mps velocity in meters per second
+     * @param acceleration acceleration in meters per second squared
+     */
+    public default void setDriveMotor(double mps, double acceleration) {
+        setDriveMotor(mps);
+    }
+
     public default void setDriveMotorPower(double power) {}
 
     public default void setAngleMotor(double angle) {}
@@ -3,16 +3,21 @@ package frc.lib.util.swerve;
 import static edu.wpi.first.units.Units.Meter;
 import com.ctre.phoenix6.BaseStatusSignal;
 import com.ctre.phoenix6.StatusSignal;
+import com.ctre.phoenix6.Timestamp;
 import com.ctre.phoenix6.configs.CANcoderConfiguration;
 import com.ctre.phoenix6.configs.TalonFXConfiguration;
 import com.ctre.phoenix6.controls.DutyCycleOut;
+import com.ctre.phoenix6.controls.MotionMagicExpoVoltage;
 import com.ctre.phoenix6.controls.PositionVoltage;
+import com.ctre.phoenix6.controls.VelocityTorqueCurrentFOC;
 import com.ctre.phoenix6.controls.VelocityVoltage;
 import com.ctre.phoenix6.hardware.CANcoder;
+import com.ctre.phoenix6.hardware.ParentDevice;
 import com.ctre.phoenix6.hardware.TalonFX;
 // import com.ctre.phoenix6.signals.AbsoluteSensorRangeValue;
 import com.ctre.phoenix6.signals.FeedbackSensorSourceValue;
 import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.util.Units;
 import edu.wpi.first.units.measure.Angle;
 import edu.wpi.first.units.measure.AngularVelocity;
 import frc.lib.math.Conversions;
@@ -33,19 +38,28 @@ public class SwerveModuleReal implements SwerveModuleIO {
     private StatusSignal<Angle> driveMotorSelectedPosition;
     private StatusSignal<AngularVelocity> driveMotorSelectedSensorVelocity;
     private StatusSignal<Angle> angleMotorSelectedPosition;
+    private StatusSignal<AngularVelocity> angleMotorSelectedSensorVelocity;
     private StatusSignal<Angle> absolutePositionAngleEncoder;
 
     /* drive motor control requests */
     private final DutyCycleOut driveDutyCycle = new DutyCycleOut(0);
     private final VelocityVoltage driveVelocity = new VelocityVoltage(0);
+    /** Uses the torque-current gains in slot 1. */
+    private final VelocityTorqueCurrentFOC driveTorqueVelocity =
+        new VelocityTorqueCurrentFOC(0).withSlot(1);
 
     /* angle motor control requests */
     private final PositionVoltage anglePosition = new PositionVoltage(0);
+    private final MotionMagicExpoVoltage angleMotionMagic = new MotionMagicExpoVoltage(0);
     private final Rotation2d angleOffset;
 
+    private final OdometryThread.Samples odometryTimestamps;
+    private final OdometryThread.Samples odometryDrivePositions;
+    private final OdometryThread.Samples odometryAnglePositions;
+
     /** Instantiating motors and Encoders */
     public SwerveModuleReal(int driveMotorID, int angleMotorID, int cancoderID,
-        Rotation2d cancoderOffset) {
+        Rotation2d cancoderOffset, SignalRegistry signals, OdometryThread odometryThread) {
 
         this.angleOffset = cancoderOffset;
 
@@ -60,7 +74,23 @@ public class SwerveModuleReal implements SwerveModuleIO {
         driveMotorSelectedPosition = mDriveMotor.getPosition();
         driveMotorSelectedSensorVelocity = mDriveMotor.getVelocity();
         angleMotorSelectedPosition = mAngleMotor.getPosition();
+        angleMotorSelectedSensorVelocity = mAngleMotor.getVelocity();
         absolutePositionAngleEncoder = angleEncoder.getAbsolutePosition();
+        signals.register(driveMotorSelectedPosition, driveMotorSelectedSensorVelocity,
+            angleMotorSelectedPosition, angleMotorSelectedSensorVelocity,
+            absolutePositionAngleEncoder);
+        if (Constants.Swerve.synchronousSignals) {
+            // Velocities are needed at the same rate to latency compensate the positions.
+            BaseStatusSignal.setUpdateFrequencyForAll(Constants.Swerve.odometryFrequency,
+                driveMotorSelectedPosition, driveMotorSelectedSensorVelocity,
+                angleMotorSelectedPosition, angleMotorSelectedSensorVelocity);
+            absolutePositionAngleEncoder.setUpdateFrequency(Constants.Swerve.signalFrequency);
+            ParentDevice.optimizeBusUtilizationForAll(mDriveMotor, mAngleMotor, angleEncoder);
+        }
+
+        odometryTimestamps = odometryThread.timestamps();
+        odometryDrivePositions = odometryThread.registerSignal(driveMotorSelectedPosition);
+        odometryAnglePositions = odometryThread.registerSignal(angleMotorSelectedPosition);
     }
 
     private void configAngleMotor() {
@@ -89,6 +119,14 @@ public class SwerveModuleReal implements SwerveModuleIO {
         swerveAngleFXConfig.Slot0.kP = Constants.Swerve.angleKP;
         swerveAngleFXConfig.Slot0.kI = Constants.Swerve.angleKI;
         swerveAngleFXConfig.Slot0.kD = Constants.Swerve.angleKD;
+        swerveAngleFXConfig.Slot0.kV = Constants.Swerve.angleKV;
+        swerveAngleFXConfig.Slot0.kA = Constants.Swerve.angleKA;
+
+        /* Motion Magic Config */
+        swerveAngleFXConfig.MotionMagic.MotionMagicCruiseVelocity =
+            Units.radiansToRotations(Constants.Swerve.maxSteerVelocity);
+        swerveAngleFXConfig.MotionMagic.MotionMagicExpo_kV = Constants.Swerve.angleKV;
+        swerveAngleFXConfig.MotionMagic.MotionMagicExpo_kA = Constants.Swerve.angleKA;
 
         mAngleMotor.getConfigurator().apply(swerveAngleFXConfig);
     }
@@ -119,6 +157,17 @@ public class SwerveModuleReal implements SwerveModuleIO {
         swerveDriveFXConfig.Slot0.kV = Constants.Swerve.driveKV;
         swerveDriveFXConfig.Slot0.kA = Constants.Swerve.driveKA;
 
+        /* Torque-Current Config */
+        if (Constants.Swerve.torqueCurrentDrive) {
+            swerveDriveFXConfig.Slot1.kP = Constants.Swerve.driveTorqueKP;
+            swerveDriveFXConfig.Slot1.kS = Constants.Swerve.driveTorqueKS;
+            swerveDriveFXConfig.Slot1.kA = Constants.Swerve.driveTorqueKA;
+            swerveDriveFXConfig.TorqueCurrent.PeakForwardTorqueCurrent =
+                Constants.Swerve.driveTorqueCurrentLimit;
+            swerveDriveFXConfig.TorqueCurrent.PeakReverseTorqueCurrent =
+                -Constants.Swerve.driveTorqueCurrentLimit;
+        }
+
         /* Open and Closed Loop Ramping */
         swerveDriveFXConfig.OpenLoopRamps.DutyCycleOpenLoopRampPeriod =
             Constants.Swerve.openLoopRamp;
@@ -144,30 +193,80 @@ public class SwerveModuleReal implements SwerveModuleIO {
 
     @Override
     public void setAngleMotor(double angle) {
-        mAngleMotor.setControl(anglePosition.withPosition(angle));
+        if (Constants.Swerve.motionMagicSteering) {
+            mAngleMotor.setControl(angleMotionMagic.withPosition(angle));
+        } else {
+            mAngleMotor.setControl(anglePosition.withPosition(angle));
+        }
     }
 
     @Override
     public void setDriveMotor(double mps) {
-        // driveVelocity.FeedForward = feedforward;
-        double driveRPS = Conversions.metersPerSecondToRotationPerSecond(mps,
-            Constants.Swerve.wheelCircumference.in(Meter));
-        driveVelocity.Velocity = driveRPS;
-        mDriveMotor.setControl(driveVelocity);
+        setDriveMotor(mps, 0.0);
+    }
+
+    @Override
+    public void setDriveMotor(double mps, double acceleration) {
+        double circumference = Constants.Swerve.wheelCircumference.in(Meter);
+        double driveRPS = Conversions.metersPerSecondToRotationPerSecond(mps, circumference);
+        // Rotations scale linearly with meters, so the same conversion works for acceleration.
+        double driveRPSS =
+            Conversions.metersPerSecondToRotationPerSecond(acceleration, circumference);
+        if (Constants.Swerve.torqueCurrentDrive) {
+            mDriveMotor.setControl(
+                driveTorqueVelocity.withVelocity(driveRPS).withAcceleration(driveRPSS));
+        } else {
+            mDriveMotor
+                .setControl(driveVelocity.withVelocity(driveRPS).withAcceleration(driveRPSS));
+        }
     }
 
     @Override
     public void updateInputs(SwerveModuleInputs inputs) {
-        BaseStatusSignal.refreshAll(driveMotorSelectedPosition, driveMotorSelectedSensorVelocity,
-            angleMotorSelectedPosition, absolutePositionAngleEncoder);
-        inputs.driveMotorSelectedPosition = driveMotorSelectedPosition.getValue();
+        // Refreshed for the whole drive by SwerveReal.
+        if (Constants.Swerve.synchronousSignals) {
+            inputs.driveMotorSelectedPosition = BaseStatusSignal.getLatencyCompensatedValue(
+                driveMotorSelectedPosition, driveMotorSelectedSensorVelocity);
+            inputs.angleMotorSelectedPosition = BaseStatusSignal.getLatencyCompensatedValue(
+                angleMotorSelectedPosition, angleMotorSelectedSensorVelocity);
+        } else {
+            inputs.driveMotorSelectedPosition = driveMotorSelectedPosition.getValue();
+            inputs.angleMotorSelectedPosition = angleMotorSelectedPosition.getValue();
+        }
         inputs.driveMotorSelectedSensorVelocity = driveMotorSelectedSensorVelocity.getValue();
-        inputs.angleMotorSelectedPosition = angleMotorSelectedPosition.getValue();
         inputs.absolutePositionAngleEncoder = absolutePositionAngleEncoder.getValue();
+        inputs.timestampSource = bestTimestamp(driveMotorSelectedPosition).getSource().name();
+        inputs.driveMotorPositionTimestamp = deviceTimestamp(driveMotorSelectedPosition);
+        inputs.driveMotorVelocityTimestamp = deviceTimestamp(driveMotorSelectedSensorVelocity);
+        inputs.angleMotorPositionTimestamp = deviceTimestamp(angleMotorSelectedPosition);
+        inputs.absolutePositionTimestamp = deviceTimestamp(absolutePositionAngleEncoder);
+        inputs.odometryTimestamps = odometryTimestamps.drain();
+        inputs.odometryDrivePositions = odometryDrivePositions.drain();
+        inputs.odometryAnglePositions = odometryAnglePositions.drain();
         // inputs.driveMotorTemp = mDriveMotor.getDeviceTemp().getValueAsDouble();
         // inputs.angleMotorTemp = mAngleMotor.getDeviceTemp().getValueAsDouble();
     }
 
+    private static double deviceTimestamp(StatusSignal<?> signal) {
+        return bestTimestamp(signal).getTime();
+    }
+
+    /**
+     * Get the most accurate valid timestamp of a signal. Device timestamps need Phoenix Pro on a
+     * CANivore, so without it this falls back to when the CANivore received the frame, then to
+     * when the robot did.
+     */
+    private static Timestamp bestTimestamp(StatusSignal<?> signal) {
+        var timestamps = signal.getAllTimestamps();
+        if (timestamps.getDeviceTimestamp().isValid()) {
+            return timestamps.getDeviceTimestamp();
+        }
+        if (timestamps.getCANivoreTimestamp().isValid()) {
+            return timestamps.getCANivoreTimestamp();
+        }
+        return timestamps.getSystemTimestamp();
+    }
+
     @Override
     public void setPositionAngleMotor(double absolutePosition) {
         mAngleMotor.setPosition(absolutePosition);
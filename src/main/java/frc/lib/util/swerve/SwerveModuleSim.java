@@ -16,8 +16,8 @@ import edu.wpi.first.units.measure.Angle;
 import edu.wpi.first.units.measure.AngularVelocity;
 import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.simulation.FlywheelSim;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import frc.lib.math.Conversions;
+import frc.lib.util.Telemetry;
 import frc.robot.Constants;
 
 /**
@@ -36,6 +36,8 @@ public class SwerveModuleSim implements SwerveModuleIO {
     private double driveAppliedVolts = 0.0;
     private SimpleMotorFeedforward driveFeedforward = new SimpleMotorFeedforward(0.0, 0.13);
     private PIDController driveFeedback = new PIDController(0.5, 0.0, 0.0);
+    private Telemetry.NumberEntry driveFFEntry;
+    private Telemetry.NumberEntry driveVoltsEntry;
 
     /**
      * Swerve Module Sim
@@ -45,6 +47,8 @@ public class SwerveModuleSim implements SwerveModuleIO {
     @Override
     public void setModNumber(int number) {
         this.moduleNumber = number;
+        this.driveFFEntry = Telemetry.number("ff/" + number);
+        this.driveVoltsEntry = Telemetry.number("Drive volts/" + number);
     }
 
     @Override
@@ -59,7 +63,10 @@ public class SwerveModuleSim implements SwerveModuleIO {
         inputs.angleMotorSelectedPosition = angle;
 
         inputs.absolutePositionAngleEncoder = angle;
+        // The simulated module only advances once per loop, so it has a single sample.
         inputs.odometryTimestamps = new double[] {Timer.getFPGATimestamp()};
+        inputs.odometryDrivePositions = new double[] {distance.in(Rotations)};
+        inputs.odometryAnglePositions = new double[] {angle.in(Rotations)};
     }
 
     /**
@@ -72,12 +79,12 @@ public class SwerveModuleSim implements SwerveModuleIO {
             Constants.Swerve.wheelCircumference.in(Meters));
         driveFeedback.setSetpoint(rpm);
         double driveFF = driveFeedforward.calculate(mps);
-        SmartDashboard.putNumber("ff/" + moduleNumber, driveFF);
+        driveFFEntry.set(driveFF);
         double volts = driveFeedback.calculate(mps) + driveFF;
         if (rpm == 0) {
             volts = 0;
         }
-        SmartDashboard.putNumber("Drive volts/" + moduleNumber, volts);
+        driveVoltsEntry.set(volts);
         setDriveVoltage(volts);
     }
 
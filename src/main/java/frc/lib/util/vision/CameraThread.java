@@ -0,0 +1,142 @@
+package frc.lib.util.vision;
+
+import java.util.Optional;
+import java.util.Queue;
+import java.util.function.IntPredicate;
+import edu.wpi.first.apriltag.AprilTagFieldLayout;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Pose3d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Transform3d;
+import edu.wpi.first.wpilibj.DriverStation;
+import frc.robot.Constants;
+
+/**
+ * Turns the frames of one camera into robot pose measurements, off the main loop.
+ *
+ * <p>
+ * Each frame is filtered and solved on this thread:
+ * <ul>
+ * <li>tags missing from the field layout or rejected by the tag filter are dropped,</li>
+ * <li>a frame with a single tag is dropped if that tag's pose is ambiguous,</li>
+ * <li>every remaining tag gives a robot pose, and the poses are averaged, weighting each by the
+ * inverse square of its distance,</li>
+ * <li>poses off the field or off the floor are dropped.</li>
+ * </ul>
+ * The result is posted to a queue shared with the other cameras, which the main loop drains.
+ * Standard deviations grow with the square of the average tag distance and shrink with the number
+ * of tags.
+ */
+public class CameraThread extends Thread {
+    /** Distance a pose may be outside the field or above the floor before it is dropped. */
+    private static final double FIELD_MARGIN = 0.5;
+    private static final double FRAME_TIMEOUT = 0.5;
+
+    private final int index;
+    private final VisionCamera camera;
+    private final Transform3d cameraToRobot;
+    private final AprilTagFieldLayout layout;
+    private final IntPredicate tagFilter;
+    private final Queue<VisionMeasurement> measurements;
+
+    /**
+     * @param index index of the camera, reported with each measurement.
+     * @param camera the camera to read.
+     * @param robotToCamera the camera's position on the robot.
+     * @param layout the field's tags.
+     * @param tagFilter which tags may be used. Called from this thread.
+     * @param measurements lock-free queue to post measurements to.
+     */
+    public CameraThread(int index, VisionCamera camera, Transform3d robotToCamera,
+        AprilTagFieldLayout layout, IntPredicate tagFilter, Queue<VisionMeasurement> measurements) {
+        super("Vision-" + camera.getName());
+        this.index = index;
+        this.camera = camera;
+        this.cameraToRobot = robotToCamera.inverse();
+        this.layout = layout;
+        this.tagFilter = tagFilter;
+        this.measurements = measurements;
+        setDaemon(true);
+    }
+
+    @Override
+    public void run() {
+        while (!isInterrupted()) {
+            VisionFrame frame;
+            try {
+                frame = camera.nextFrame(FRAME_TIMEOUT);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (frame == null) {
+                continue;
+            }
+            try {
+                VisionMeasurement measurement = estimate(frame);
+                if (measurement != null) {
+                    measurements.add(measurement);
+                }
+            } catch (RuntimeException e) {
+                // Keep the camera running; one bad frame shouldn't stop vision for the match.
+                DriverStation.reportError("Vision " + camera.getName() + ": " + e,
+                    e.getStackTrace());
+            }
+        }
+    }
+
+    /**
+     * Estimate the robot pose from a frame.
+     *
+     * @return the measurement, or {@code null} if the frame was rejected.
+     */
+    public VisionMeasurement estimate(VisionFrame frame) {
+        int tagCount = 0;
+        double totalDistance = 0.0;
+        double totalWeight = 0.0;
+        double x = 0.0;
+        double y = 0.0;
+        double z = 0.0;
+        double cos = 0.0;
+        double sin = 0.0;
+        double ambiguity = 0.0;
+        for (TagObservation tag : frame.tags()) {
+            Optional<Pose3d> tagPose = layout.getTagPose(tag.id());
+            if (tagPose.isEmpty() || !tagFilter.test(tag.id())) {
+                continue;
+            }
+            Pose3d robotPose = tagPose.get().transformBy(tag.bestCameraToTag().inverse())
+                .transformBy(cameraToRobot);
+            double distance = tag.bestCameraToTag().getTranslation().getNorm();
+            double weight = 1.0 / Math.max(distance * distance, 1e-6);
+            double yaw = robotPose.getRotation().getZ();
+            x += weight * robotPose.getX();
+            y += weight * robotPose.getY();
+            z += weight * robotPose.getZ();
+            cos += weight * Math.cos(yaw);
+            sin += weight * Math.sin(yaw);
+            totalWeight += weight;
+            totalDistance += distance;
+            tagCount++;
+            ambiguity = tag.ambiguity();
+        }
+        // With more than one tag the others pin down which solution is right, so ambiguity only
+        // matters for a lone tag.
+        if (tagCount == 0
+            || (tagCount == 1 && ambiguity > Constants.CameraConstants.MAX_AMBIGUITY)) {
+            return null;
+        }
+        x /= totalWeight;
+        y /= totalWeight;
+        z /= totalWeight;
+        if (x < -FIELD_MARGIN || x > layout.getFieldLength() + FIELD_MARGIN || y < -FIELD_MARGIN
+            || y > layout.getFieldWidth() + FIELD_MARGIN || Math.abs(z) > FIELD_MARGIN) {
+            return null;
+        }
+        double averageDistance = totalDistance / tagCount;
+        double distanceFactor = averageDistance * averageDistance / tagCount;
+        return new VisionMeasurement(index, frame.timestamp(),
+            new Pose2d(x, y, new Rotation2d(cos, sin)), tagCount,
+            Constants.CameraConstants.XY_STD_DEV_COEFF * distanceFactor,
+            Constants.CameraConstants.THETA_STD_DEV_COEFF * distanceFactor);
+    }
+}
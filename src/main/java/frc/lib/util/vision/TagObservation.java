@@ -0,0 +1,17 @@
+package frc.lib.util.vision;
+
+import edu.wpi.first.math.geometry.Transform3d;
+
+/**
+ * One AprilTag seen in a camera frame.
+ *
+ * @param id fiducial ID of the tag.
+ * @param bestCameraToTag the most likely transform from the camera to the tag.
+ * @param altCameraToTag the second most likely transform, from the other solution of the
+ *        single-tag PnP problem.
+ * @param ambiguity ratio of the reprojection errors of the best and alternate solutions, from 0
+ *        (certain) to 1 (both equally likely).
+ */
+public record TagObservation(int id, Transform3d bestCameraToTag, Transform3d altCameraToTag,
+    double ambiguity) {
+}
@@ -0,0 +1,21 @@
+package frc.lib.util.vision;
+
+/**
+ * A source of AprilTag observations. Read from a {@link CameraThread}, never from the main loop.
+ */
+public interface VisionCamera {
+
+    /**
+     * Get the camera's name, for thread names and error messages.
+     */
+    public String getName();
+
+    /**
+     * Wait for the next frame.
+     *
+     * @param timeoutSeconds how long to wait.
+     * @return the frame, or {@code null} if none arrived in time.
+     * @throws InterruptedException if the thread was interrupted while waiting.
+     */
+    public VisionFrame nextFrame(double timeoutSeconds) throws InterruptedException;
+}
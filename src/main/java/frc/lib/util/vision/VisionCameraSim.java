@@ -0,0 +1,128 @@
+package frc.lib.util.vision;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+import edu.wpi.first.apriltag.AprilTag;
+import edu.wpi.first.apriltag.AprilTagFieldLayout;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Pose3d;
+import edu.wpi.first.math.geometry.Rotation3d;
+import edu.wpi.first.math.geometry.Transform3d;
+import edu.wpi.first.math.geometry.Translation3d;
+import edu.wpi.first.wpilibj.Timer;
+
+/**
+ * A camera that renders AprilTag observations from the field layout and the robot's true pose.
+ *
+ * <p>
+ * A tag is seen if it is in front of the camera, inside its field of view, close enough, and
+ * facing it. Each observation gets Gaussian noise that grows with the square of the distance.
+ * Ambiguity is modeled as highest for tags seen face-on, which is when the two single-tag PnP
+ * solutions are closest in practice. Frames are delivered at a fixed rate, one latency after they
+ * were captured.
+ */
+public class VisionCameraSim implements VisionCamera {
+    private static final double FRAME_RATE = 30.0;
+    private static final double LATENCY = 0.03;
+    private static final double HORIZONTAL_FOV = Math.toRadians(70.0);
+    private static final double VERTICAL_FOV = Math.toRadians(50.0);
+    private static final double MAX_DISTANCE = 6.0;
+    /** Translation noise, in meters per square meter of distance. */
+    private static final double TRANSLATION_NOISE = 0.005;
+    /** Yaw noise, in radians per meter of distance. */
+    private static final double YAW_NOISE = Math.toRadians(0.5);
+    /** Ambiguity of a tag seen exactly face-on. */
+    private static final double MAX_AMBIGUITY = 0.2;
+
+    private final String name;
+    private final Transform3d robotToCamera;
+    private final Supplier<Pose2d> robotPose;
+    private final AprilTagFieldLayout layout;
+    private final Random random;
+    private long nextFrameNanos = System.nanoTime();
+
+    /**
+     * @param name name of the camera.
+     * @param robotToCamera the camera's position on the robot.
+     * @param robotPose the robot's true pose. Called from the camera's thread.
+     * @param layout the field's tags.
+     * @param seed seed for the noise, so runs can be repeated.
+     */
+    public VisionCameraSim(String name, Transform3d robotToCamera, Supplier<Pose2d> robotPose,
+        AprilTagFieldLayout layout, long seed) {
+        this.name = name;
+        this.robotToCamera = robotToCamera;
+        this.robotPose = robotPose;
+        this.layout = layout;
+        this.random = new Random(seed);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public VisionFrame nextFrame(double timeoutSeconds) throws InterruptedException {
+        long timeoutNanos = (long) (timeoutSeconds * 1e9);
+        long untilFrame = nextFrameNanos - System.nanoTime();
+        if (untilFrame > timeoutNanos) {
+            sleepNanos(timeoutNanos);
+            return null;
+        }
+        sleepNanos(untilFrame);
+        nextFrameNanos = Math.max(nextFrameNanos, System.nanoTime()) + (long) (1e9 / FRAME_RATE);
+        double timestamp = Timer.getFPGATimestamp();
+        List<TagObservation> tags = render(new Pose3d(robotPose.get()));
+        sleepNanos((long) (LATENCY * 1e9));
+        return new VisionFrame(timestamp, tags);
+    }
+
+    /**
+     * Get the tags seen from a robot pose.
+     */
+    public List<TagObservation> render(Pose3d robot) {
+        Pose3d cameraPose = robot.transformBy(robotToCamera);
+        List<TagObservation> tags = new ArrayList<>();
+        for (AprilTag tag : layout.getTags()) {
+            Transform3d cameraToTag = new Transform3d(cameraPose, tag.pose);
+            Translation3d translation = cameraToTag.getTranslation();
+            double distance = translation.getNorm();
+            if (translation.getX() <= 0.0 || distance > MAX_DISTANCE) {
+                continue;
+            }
+            double horizontal = Math.atan2(translation.getY(), translation.getX());
+            double vertical = Math.atan2(translation.getZ(), translation.getX());
+            if (Math.abs(horizontal) > HORIZONTAL_FOV / 2.0
+                || Math.abs(vertical) > VERTICAL_FOV / 2.0) {
+                continue;
+            }
+            // Tags face along their own +X axis; they are visible if that points at the camera.
+            Translation3d normal = new Translation3d(1.0, 0.0, 0.0)
+                .rotateBy(cameraToTag.getRotation());
+            double facing = -(normal.getX() * translation.getX()
+                + normal.getY() * translation.getY() + normal.getZ() * translation.getZ())
+                / distance;
+            if (facing <= 0.0) {
+                continue;
+            }
+            double translationNoise = TRANSLATION_NOISE * distance * distance;
+            Transform3d noisy = new Transform3d(
+                translation.plus(new Translation3d(random.nextGaussian() * translationNoise,
+                    random.nextGaussian() * translationNoise,
+                    random.nextGaussian() * translationNoise)),
+                cameraToTag.getRotation().plus(
+                    new Rotation3d(0.0, 0.0, random.nextGaussian() * YAW_NOISE * distance)));
+            tags.add(new TagObservation(tag.ID, noisy, noisy, MAX_AMBIGUITY * facing));
+        }
+        return tags;
+    }
+
+    private static void sleepNanos(long nanos) throws InterruptedException {
+        if (nanos > 0) {
+            Thread.sleep(nanos / 1_000_000, (int) (nanos % 1_000_000));
+        }
+    }
+}
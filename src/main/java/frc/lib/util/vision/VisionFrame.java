@@ -0,0 +1,12 @@
+package frc.lib.util.vision;
+
+import java.util.List;
+
+/**
+ * The tags seen in one camera frame.
+ *
+ * @param timestamp when the frame was captured, in FPGA seconds.
+ * @param tags every tag seen in the frame.
+ */
+public record VisionFrame(double timestamp, List<TagObservation> tags) {
+}
@@ -0,0 +1,19 @@
+package frc.lib.util.vision;
+
+import edu.wpi.first.math.geometry.Pose2d;
+
+/**
+ * A robot pose estimated from one camera frame, ready for
+ * {@link edu.wpi.first.math.estimator.SwerveDrivePoseEstimator#addVisionMeasurement(Pose2d, double,
+ * edu.wpi.first.math.Matrix) addVisionMeasurement}.
+ *
+ * @param camera index of the camera that saw the frame.
+ * @param timestamp when the frame was captured, in FPGA seconds.
+ * @param pose estimated robot pose on the field.
+ * @param tagCount number of tags the pose was solved from.
+ * @param xyStdDev standard deviation of the x and y estimates, in meters.
+ * @param thetaStdDev standard deviation of the heading estimate, in radians.
+ */
+public record VisionMeasurement(int camera, double timestamp, Pose2d pose, int tagCount,
+    double xyStdDev, double thetaStdDev) {
+}
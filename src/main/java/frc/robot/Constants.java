@@ -1,6 +1,7 @@
 package frc.robot;
 
 import static edu.wpi.first.units.Units.Inches;
+import static edu.wpi.first.units.Units.Meters;
 import com.ctre.phoenix6.signals.InvertedValue;
 import com.ctre.phoenix6.signals.NeutralModeValue;
 import com.ctre.phoenix6.signals.SensorDirectionValue;
@@ -37,7 +38,8 @@ public final class Constants {
     public static final int OPERATOR_ID = 1;
 
     /**
-     * How far in the future we should "lead" the aiming of the shooter for shooting while moving.
+     * How far in the future, in seconds, we should "lead" the aiming of the shooter for shooting
+     * while moving.
      */
     public static final double LEAD_GAIN = 0.3;
 
@@ -107,6 +109,8 @@ public final class Constants {
 
         public static double XY_STD_DEV_COEFF = 0.005;
         public static double THETA_STD_DEV_COEFF = 0.01;
+        /** Single-tag frames with a more ambiguous pose than this are dropped. */
+        public static final double MAX_AMBIGUITY = 0.1;
 
         /**
          * Constants for Front Left Camera
@@ -196,6 +200,7 @@ public final class Constants {
         public static final double wheelBase = Units.inchesToMeters(17.75);
         public static final Distance wheelDiameter = Inches.of(3.8);
         public static final Distance wheelCircumference = wheelDiameter.times(Math.PI);
+        public static final double wheelCircumferenceMeters = wheelCircumference.in(Meters);
         public static final Translation2d MOD0_MODOFFSET =
             new Translation2d(wheelBase / 2.0, trackWidth / 2.0);
 
@@ -203,11 +208,13 @@ public final class Constants {
          * Swerve Kinematics No need to ever change this unless you are not doing a traditional
          * rectangular/square 4 module swerve
          */
-        public static final SwerveDriveKinematics swerveKinematics =
-            new SwerveDriveKinematics(new Translation2d(wheelBase / 2.0, trackWidth / 2.0),
+        public static final Translation2d[] moduleTranslations =
+            {new Translation2d(wheelBase / 2.0, trackWidth / 2.0),
                 new Translation2d(wheelBase / 2.0, -trackWidth / 2.0),
                 new Translation2d(-wheelBase / 2.0, trackWidth / 2.0),
-                new Translation2d(-wheelBase / 2.0, -trackWidth / 2.0));
+                new Translation2d(-wheelBase / 2.0, -trackWidth / 2.0)};
+        public static final SwerveDriveKinematics swerveKinematics =
+            new SwerveDriveKinematics(moduleTranslations);
 
         /* Module Gear Ratios */
         public static final double driveGearRatio = (8.14 / 1.0); // MK4i L1
@@ -245,6 +252,13 @@ public final class Constants {
         public static final double angleKI = 0.0;
         public static final double angleKD = 0.0;
 
+        /*
+         * Angle Motor Feedforward, in volts per module rotation per second (squared). kV is 12
+         * volts over the Falcon's free speed at the module.
+         */
+        public static final double angleKV = 12.0 / (6380.0 / 60.0 / angleGearRatio);
+        public static final double angleKA = 0.1;
+
         /* Drive Motor PID Values */
         public static final double driveKP = 0.12;
         public static final double driveKI = 0.0;
@@ -256,12 +270,70 @@ public final class Constants {
         public static final double driveKV = 1.51;
         public static final double driveKA = 0.27;
 
+        /*
+         * Drive Motor Torque-Current Gains, in amps per wheel rotation per second (squared), used
+         * only with torqueCurrentDrive. Untuned starting estimates: kA is from a quarter of the
+         * robot's mass; tune with SysId before enabling.
+         */
+        public static final double driveTorqueKP = 5.0;
+        public static final double driveTorqueKS = 3.0;
+        public static final double driveTorqueKA = 1.2;
+        /** Amps. Most stator current the torque-current drive may command. */
+        public static final double driveTorqueCurrentLimit = 80.0;
+
         /* Swerve Profiling Values */
         /** Meters per Second */
         public static final double maxSpeed = 3.0;
         public static final double AUTO_MAX_SPEED = 3.0;
         /** Radians per Second */
         public static final double maxAngularVelocity = 4.0;
+        /**
+         * Meters per Second Squared. Most a module's velocity may change by, in any direction,
+         * before the wheels start to slip.
+         */
+        public static final double maxModuleAcceleration = 6.0;
+        /**
+         * Radians per Second. Most a module may steer, a little under the angle motor's free speed
+         * (Falcon 500, 6380 RPM) through the angle gear ratio.
+         */
+        public static final double maxSteerVelocity =
+            0.8 * Units.rotationsPerMinuteToRadiansPerSecond(6380.0) / angleGearRatio;
+        /**
+         * Whether driving goes through the setpoint generator, which limits module acceleration to
+         * {@link #maxModuleAcceleration} and steering to {@link #maxSteerVelocity}.
+         */
+        public static final boolean setpointGenerator = true;
+        /**
+         * Whether the angle motors follow a Motion Magic Expo profile to each angle on the motor
+         * controller, instead of jumping straight to it with a position PID.
+         */
+        public static final boolean motionMagicSteering = true;
+        /**
+         * Whether the drive motors use torque-current (FOC) velocity control instead of voltage
+         * velocity control. Needs Phoenix Pro licensed motors, which the robot doesn't have;
+         * unlicensed motors refuse the request and don't drive.
+         */
+        public static final boolean torqueCurrentDrive = false;
+
+        /** Hz. Rate at which module positions and gyro yaw are sampled for odometry. */
+        public static final double odometryFrequency = 250.0;
+        /**
+         * Whether the swerve CAN signals are run at fixed rates (odometry signals at
+         * {@link #odometryFrequency}, everything else unused disabled) and positions are latency
+         * compensated with their velocities.
+         */
+        public static final boolean synchronousSignals = true;
+        /**
+         * Whether the NavX is sampled on its own thread at its native rate, with odometry yaws
+         * interpolated from those samples, instead of being read by the odometry thread.
+         */
+        public static final boolean gyroThread = true;
+        /** Hz. Rate of swerve signals that aren't used for odometry. */
+        public static final double signalFrequency = 50.0;
+        /** Seconds of estimated poses kept for looking up past poses. */
+        public static final double poseHistorySeconds = 1.5;
+        /** Seconds past the newest estimated pose that it may be extrapolated. */
+        public static final double maxPoseExtrapolation = 0.5;
 
         /* Neutral Modes */
         public static final NeutralModeValue angleNeutralMode = NeutralModeValue.Coast;
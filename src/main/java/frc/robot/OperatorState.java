@@ -35,7 +35,8 @@ public class OperatorState {
         }
     }
 
-    private static State currentState = State.kShootWhileMove;
+    // Read by the vision threads through tagFilter.
+    private static volatile State currentState = State.kShootWhileMove;
     private static boolean manualMode = false;
 
     /** Get whether or not operator should be able to control wrist and elevator manually. */
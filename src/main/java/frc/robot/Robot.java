@@ -20,6 +20,15 @@ import edu.wpi.first.wpilibj.PowerDistribution.ModuleType;
 import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.lib.profiling.BinaryProfileLoggingFormat;
+import frc.lib.profiling.EmptyProfiler;
+import frc.lib.profiling.FlightRecorder;
+import frc.lib.profiling.JsonProfileLoggingFormat;
+import frc.lib.profiling.LoggingProfiler;
+import frc.lib.profiling.Profiler;
+import frc.lib.profiling.SchedulerInstrumentation;
+import frc.lib.util.GarbageCollectionScheduler;
+import frc.lib.util.Telemetry;
 
 /**
  * Runs tasks on Roborio in this file.
@@ -28,7 +37,17 @@ public class Robot extends LoggedRobot {
     private RobotContainer robotContainer;
     private Command autoChooser;
 
-    // public static Profiler profiler;
+    public static Profiler profiler = EmptyProfiler.INSTANCE;
+
+    private static final int ROBOT_PERIODIC = Profiler.intern("robotPeriodic()");
+    private static final int DRAW_STATE = Profiler.intern("draw_state_to_shuffleboard");
+    private static final int COMMAND_SCHEDULER = Profiler.intern("command_scheduler");
+    private static final int VIZ = Profiler.intern("viz");
+    private static final int TELEMETRY = Profiler.intern("telemetry");
+    private static final int GC = Profiler.intern("gc");
+    private static final int AUTONOMOUS_INIT = Profiler.intern("autonomousInit()");
+    private static final int TELEOP_INIT = Profiler.intern("teleopInit()");
+    private static final int TEST_INIT = Profiler.intern("testInit()");
 
     /**
      * Robot Run type
@@ -42,14 +61,18 @@ public class Robot extends LoggedRobot {
         kReplay;
     }
 
-    public static boolean inAuto = false;
+    // Read by the vision threads through OperatorState.tagFilter.
+    public static volatile boolean inAuto = false;
     public RobotRunType robotRunType = RobotRunType.kReal;
-    private Timer gcTimer = new Timer();
+    private final GarbageCollectionScheduler gcScheduler =
+        new GarbageCollectionScheduler(Logger::getRealTimestamp);
     private Timer profileTimer = new Timer();
+    // Ticks only cover our own code: from the first hook that runs in a loop to the end of
+    // robotPeriodic(), not LoggedRobot's wait for the next loop.
+    private boolean profilerTickStarted = false;
     // We don't want to write empty profiles, so we have a boolean that only becomes true once
     // teleop or auto has started.
     private boolean hasDoneSomething = false;
-    private boolean hasStarted = false;
 
     /** Set up logging, profiling, and robotContainer. */
     @SuppressWarnings("resource")
@@ -98,21 +121,40 @@ public class Robot extends LoggedRobot {
             }
         }
         Logger.start(); // Start logging! No more data receivers, replay sources, or metadata values
-        // switch (robotRunType) {
-        // // case kReal -> profiler =
-        // new LoggingProfiler(() -> Logger.getRealTimestamp(), 1000000.0);
-        // case kReplay -> profiler = EmptyProfiler.INSTANCE;
-        // case kSimulation -> profiler =
-        // new LoggingProfiler(() -> Logger.getRealTimestamp(), 1000000.0);
-        // default -> {
-        // }
-        // }
+        // Times are in microseconds, reported in milliseconds. Ticks whose own code takes over
+        // 20 ms dump the flight recorder and have their cause logged.
+        switch (robotRunType) {
+            case kReal, kSimulation -> {
+                LoggingProfiler loggingProfiler = new LoggingProfiler(Logger::getRealTimestamp,
+                    1000.0, new FlightRecorder(100, 20000), new JsonProfileLoggingFormat(),
+                    new BinaryProfileLoggingFormat());
+                loggingProfiler.setTickBudget(20000);
+                profiler = loggingProfiler;
+            }
+            case kReplay -> profiler = EmptyProfiler.INSTANCE;
+            default -> {
+            }
+        }
         // Logger.disableDeterministicTimestamps() // See "Deterministic Timestamps" in the
         // "Understanding Data Flow" page
+        // Disabling them would also break the GC slack in robotPeriodic(), see cycleStart().
 
         // Instantiate our RobotContainer. This will perform all our button bindings,
         // and put our autonomous chooser on the dashboard.
         robotContainer = new RobotContainer(robotRunType);
+        SchedulerInstrumentation.install(profiler);
+    }
+
+    /**
+     * Open this loop's profiler tick if it isn't open yet. Mode init methods run before
+     * robotPeriodic(), so they open it themselves when they profile or schedule or cancel commands,
+     * which the scheduler instrumentation marks.
+     */
+    private void startProfilerTick() {
+        if (!profilerTickStarted) {
+            profiler.startTick();
+            profilerTickStarted = true;
+        }
     }
 
     /**
@@ -126,20 +168,9 @@ public class Robot extends LoggedRobot {
 
     @Override
     public void robotPeriodic() {
-        if (hasStarted) {
-            // profiler.endTick();
-            if (profileTimer.advanceIfElapsed(1)) {
-                if (hasDoneSomething) {
-                    // profiler.save();
-                    // profiler.reset();
-                }
-            }
-        } else {
-            hasStarted = true;
-        }
-        // profiler.startTick();
-        // profiler.push("robotPeriodic()");
-        // profiler.push("draw_state_to_shuffleboard");
+        startProfilerTick();
+        profiler.push(ROBOT_PERIODIC);
+        profiler.push(DRAW_STATE);
         robotContainer.operatorState.setString(OperatorState.getCurrentState().displayName);
         robotContainer.operatorManualMode.setBoolean(OperatorState.manualModeEnabled());
         robotContainer.matchTime.setDouble(Timer.getMatchTime());
@@ -151,16 +182,39 @@ public class Robot extends LoggedRobot {
         // subsystem periodic() methods. This must be called from the robot's periodic block in
         // order for
         // anything in the Command-based framework to work.
-        // profiler.swap("command_scheduler");
+        profiler.swap(COMMAND_SCHEDULER);
         CommandScheduler.getInstance().run();
-        // profiler.swap("manual-gc");
-        if (gcTimer.advanceIfElapsed(5)) {
-            System.gc();
-        }
-        // profiler.swap("viz");
+        profiler.swap(VIZ);
         robotContainer.updateViz();
-        // profiler.pop();
-        // profiler.pop();
+        profiler.swap(TELEMETRY);
+        Telemetry.flush();
+        // Collect last, so the loop's remaining slack is known. Disabled covers the gap between
+        // autonomous and teleop.
+        profiler.swap(GC);
+        long slack = (long) (getPeriod() * 1e6) - (Logger.getRealTimestamp() - cycleStart());
+        gcScheduler.periodic(isDisabled(), slack);
+        profiler.pop();
+        profiler.pop();
+        profiler.endTick();
+        profilerTickStarted = false;
+        if (profileTimer.advanceIfElapsed(1)) {
+            if (hasDoneSomething) {
+                profiler.save();
+            } else {
+                profiler.reset();
+            }
+        }
+    }
+
+    /**
+     * Get when this loop started, in FPGA microseconds. With deterministic timestamps (the
+     * default), {@link Logger#getTimestamp()} is captured by LoggedRobot before the mode periodic
+     * methods and input processing run, so slack measured from it accounts for them. In replay it
+     * is log time instead, so the real time of the current call is the best available.
+     */
+    private long cycleStart() {
+        return robotRunType == RobotRunType.kReplay ? Logger.getRealTimestamp()
+            : Logger.getTimestamp();
     }
 
     @Override
@@ -175,7 +229,8 @@ public class Robot extends LoggedRobot {
     @Override
     public void autonomousInit() {
         hasDoneSomething = true;
-        // profiler.push("autonomousInit()");
+        startProfilerTick();
+        profiler.push(AUTONOMOUS_INIT);
         inAuto = true;
         OperatorState.disableManualMode();
 
@@ -186,7 +241,7 @@ public class Robot extends LoggedRobot {
         if (autoChooser != null) {
             autoChooser.schedule();
         }
-        // profiler.pop();
+        profiler.pop();
     }
 
     /** This function is called periodically during autonomous. */
@@ -196,12 +251,13 @@ public class Robot extends LoggedRobot {
     @Override
     public void teleopInit() {
         hasDoneSomething = true;
-        // profiler.push("teleopInit()");
+        startProfilerTick();
+        profiler.push(TELEOP_INIT);
         inAuto = false;
         if (autoChooser != null) {
             autoChooser.cancel();
         }
-        // profiler.pop();
+        profiler.pop();
     }
 
     /** This function is called periodically during operator control. */
@@ -213,8 +269,12 @@ public class Robot extends LoggedRobot {
 
     @Override
     public void testInit() {
+        // Interrupting the commands marks them in the profiler, which needs an open tick.
+        startProfilerTick();
+        profiler.push(TEST_INIT);
         // Cancels all running commands at the start of test mode.
         CommandScheduler.getInstance().cancelAll();
+        profiler.pop();
     }
 
     /** This function is called periodically during test mode. */
@@ -4,6 +4,7 @@ import java.util.Map;
 import org.littletonrobotics.junction.LoggedRobot;
 import edu.wpi.first.math.filter.Debouncer;
 import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Transform3d;
 import edu.wpi.first.math.util.Units;
 import edu.wpi.first.networktables.GenericEntry;
 import edu.wpi.first.wpilibj.GenericHID;
@@ -28,6 +29,8 @@ import edu.wpi.first.wpilibj2.command.button.Trigger;
 import frc.lib.sim.SimulatedArena;
 import frc.lib.sim.SimulatedPumbaa;
 import frc.lib.util.FieldConstants;
+import frc.lib.util.vision.VisionCamera;
+import frc.lib.util.vision.VisionCameraSim;
 // import frc.lib.util.photon.PhotonCameraWrapper;
 // import frc.lib.util.photon.PhotonReal;
 import frc.lib.viz.PumbaaViz;
@@ -59,6 +62,8 @@ import frc.robot.subsystems.swerve.Swerve;
 import frc.robot.subsystems.swerve.SwerveIO;
 import frc.robot.subsystems.swerve.SwerveReal;
 import frc.robot.subsystems.swerve.SwerveSim;
+import frc.robot.subsystems.vision.VisionCameras;
+import frc.robot.subsystems.vision.VisionIO;
 
 
 /**
@@ -172,20 +177,21 @@ public class RobotContainer {
                 viz = new PumbaaViz("Viz", null);
                 shooter = new Shooter(new ShooterVortex());
                 intake = new Intake(new IntakeIOFalcon(), viz);
-                s_Swerve = new Swerve(new SwerveReal(), viz);
+                // No camera backend on the real robot yet; see VisionCameras.
+                s_Swerve = new Swerve(new SwerveReal(), new VisionIO() {}, viz);
                 elevatorWrist = new ElevatorWrist(new ElevatorWristReal(), operator, viz);
                 break;
             case kSimulation:
                 SimulatedPumbaa pumbaa = arena.newPumbaa();
                 viz = new PumbaaViz("Viz", pumbaa);
-                s_Swerve = new Swerve(new SwerveSim(pumbaa), viz);
+                s_Swerve = new Swerve(new SwerveSim(pumbaa), newSimVision(pumbaa), viz);
                 shooter = new Shooter(new ShooterSim(pumbaa));
                 intake = new Intake(new IntakeIOSim(pumbaa), viz);
                 elevatorWrist = new ElevatorWrist(new ElevatorWristIOSim(pumbaa), operator, viz);
                 break;
             default:
                 viz = new PumbaaViz("Viz", null);
-                s_Swerve = new Swerve(new SwerveIO() {}, viz);
+                s_Swerve = new Swerve(new SwerveIO() {}, new VisionIO() {}, viz);
                 shooter = new Shooter(new ShooterIO() {});
                 intake = new Intake(new IntakeIO() {}, viz);
                 elevatorWrist = new ElevatorWrist(new ElevatorWristIO() {}, operator, viz);
@@ -208,6 +214,26 @@ public class RobotContainer {
         configureButtonBindings();
     }
 
+    /**
+     * Create simulated cameras at the positions of the robot's cameras, seeing tags from the
+     * simulated robot's true pose.
+     */
+    private static VisionIO newSimVision(SimulatedPumbaa pumbaa) {
+        Transform3d[] robotToCameras =
+            {Constants.CameraConstants.FrontLeftFacingCamera.KCAMERA_TO_ROBOT,
+                Constants.CameraConstants.FrontRightFacingCamera.KCAMERA_TO_ROBOT,
+                Constants.CameraConstants.BackLeftFacingCamera.KCAMERA_TO_ROBOT};
+        String[] names = {Constants.CameraConstants.FrontLeftFacingCamera.CAMERA_NAME,
+            Constants.CameraConstants.FrontRightFacingCamera.CAMERA_NAME,
+            Constants.CameraConstants.BackLeftFacingCamera.CAMERA_NAME};
+        VisionCamera[] cameras = new VisionCamera[names.length];
+        for (int i = 0; i < cameras.length; i++) {
+            cameras[i] = new VisionCameraSim(names[i], robotToCameras[i], pumbaa::getPose,
+                FieldConstants.aprilTags, i);
+        }
+        return new VisionCameras(cameras, robotToCameras);
+    }
+
     /**
      * Use this method to vol your button->command mappings. Buttons can be created by instantiating
      * a {@link GenericHID} or one of its subclasses ({@link edu.wpi.first.wpilibj.Joystick} or
@@ -291,7 +317,9 @@ public class RobotContainer {
                     .getTranslation())
                         .alongWith(elevatorWrist.followPosition(
                             () -> Constants.ElevatorWristConstants.SetPoints.HOME_HEIGHT,
-                            () -> elevatorWrist.getAngleFromDistance(s_Swerve.getPose())
+                            () -> elevatorWrist
+                                .getAngleFromDistance(
+                                    s_Swerve.getPredictedPose(Constants.LEAD_GAIN))
                                 .plus(Rotation2d.fromDegrees(0.0)))),
             //
             OperatorState.State.kPost,
@@ -4,11 +4,10 @@ import java.util.function.Supplier;
 import edu.wpi.first.math.controller.PIDController;
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
-import edu.wpi.first.math.geometry.Transform2d;
 import edu.wpi.first.math.geometry.Translation2d;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.button.CommandXboxController;
+import frc.lib.util.Telemetry;
 import frc.robot.Constants;
 import frc.robot.RobotContainer;
 import frc.robot.subsystems.swerve.Swerve;
@@ -25,6 +24,8 @@ public class ShootWhileMoving extends Command {
 
     private PIDController pidController = new PIDController(Constants.Swerve.AUTO_ROTATION_KP,
         Constants.Swerve.AUTO_ROTATION_KI, Constants.Swerve.AUTO_ROTATION_KD);
+    private final Telemetry.NumberEntry desiredRotationEntry =
+        Telemetry.number("Move Shoot Desired Rotation");
 
     /**
      * Shoot while moving command
@@ -62,12 +63,11 @@ public class ShootWhileMoving extends Command {
         Translation2d translation =
             new Translation2d(yaxis, xaxis).times(Constants.Swerve.maxSpeed);
 
-        Pose2d futurePose = swervePoseSupplier.get().plus(
-            new Transform2d(translation.times(Constants.LEAD_GAIN), Rotation2d.fromRotations(0)));
+        Pose2d futurePose = swerveDrive.getPredictedPose(Constants.LEAD_GAIN);
 
         Rotation2d desiredRotation = getDesiredRotation(futurePose, targetPositionSupplier.get());
 
-        SmartDashboard.putNumber("Move Shoot Desired Rotation", desiredRotation.getDegrees());
+        desiredRotationEntry.set(desiredRotation.getDegrees());
         pidController.setSetpoint(desiredRotation.getRadians());
         double rotation =
             pidController.calculate(swervePoseSupplier.get().getRotation().getRadians());
@@ -49,7 +49,6 @@ public class TeleopSwerve extends Command {
 
     @Override
     public void execute() {
-        // Robot.profiler.push("teleop_swerve");
         double yaxis = -controller.getLeftY() * speedMultiplier;
         double xaxis = -controller.getLeftX() * speedMultiplier;
         double raxis = -controller.getRightX() * speedMultiplier;
@@ -68,6 +67,5 @@ public class TeleopSwerve extends Command {
             new Translation2d(yaxis, xaxis).times(Constants.Swerve.maxSpeed);
         double rotation = raxis * Constants.Swerve.maxAngularVelocity;
         swerveDrive.drive(translation, rotation, fieldRelative, openLoop);
-        // Robot.profiler.pop();
     }
 }
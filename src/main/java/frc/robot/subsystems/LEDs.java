@@ -3,12 +3,12 @@ package frc.robot.subsystems;
 import edu.wpi.first.wpilibj.AddressableLED;
 import edu.wpi.first.wpilibj.AddressableLEDBuffer;
 import edu.wpi.first.wpilibj.util.Color;
-import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.lib.profiling.ProfiledSubsystem;
 
 /**
  * This is the class header for the LEDs Subsystem
  */
-public class LEDs extends SubsystemBase {
+public class LEDs extends ProfiledSubsystem {
     private AddressableLEDBuffer controLedBuffer;
     @SuppressWarnings("IOCheck")
     private AddressableLED addressableLED;
@@ -12,16 +12,18 @@ import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.geometry.Translation2d;
 import edu.wpi.first.math.interpolation.InterpolatingDoubleTreeMap;
 import edu.wpi.first.math.trajectory.TrapezoidProfile;
+import edu.wpi.first.math.util.Units;
 import edu.wpi.first.networktables.GenericEntry;
 import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.shuffleboard.BuiltInWidgets;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.Commands;
-import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import edu.wpi.first.wpilibj2.command.button.CommandXboxController;
 import edu.wpi.first.wpilibj2.command.button.Trigger;
+import frc.lib.profiling.ProfiledSubsystem;
 import frc.lib.util.FieldConstants;
+import frc.lib.util.Telemetry;
 import frc.lib.viz.PumbaaViz;
 import frc.robot.Constants;
 import frc.robot.OperatorState;
@@ -30,7 +32,7 @@ import frc.robot.RobotContainer;
 /**
  * Elevator and Wrist Subsystem
  */
-public class ElevatorWrist extends SubsystemBase {
+public class ElevatorWrist extends ProfiledSubsystem {
     public ElevatorWristIO io;
     public ElevatorWristInputsAutoLogged inputs = new ElevatorWristInputsAutoLogged();
     private CommandXboxController operator;
@@ -68,6 +70,25 @@ public class ElevatorWrist extends SubsystemBase {
             "vertical"))
         .withPosition(8, 2).withSize(2, 2).getEntry();
 
+    private final Telemetry.NumberEntry wristError = Telemetry.number("wristError");
+    private final Telemetry.NumberEntry wristRawEncValue = Telemetry.number("wristRawEncValue");
+    private final Telemetry.NumberEntry wristGoal = Telemetry.number("Wrist Goal");
+    private final Telemetry.NumberEntry wristProfiledGoal =
+        Telemetry.number("Wrist Profiled Goal");
+    private final Telemetry.NumberEntry elevatorPIDVoltage =
+        Telemetry.number("Elevator PID Voltage");
+    private final Telemetry.NumberEntry wristPIDVoltage = Telemetry.number("Wrist PID Voltage");
+    private final Telemetry.NumberEntry elevatorPIDSetpoint =
+        Telemetry.number("ElevatorWrist PID setpoint");
+    private final Telemetry.NumberEntry leftElevatorEncoder =
+        Telemetry.number("ElevatorWrist Left Elevator Encoder Value");
+    private final Telemetry.NumberEntry rightElevatorEncoder =
+        Telemetry.number("ElevatorWrist Right Elevator Encoder Value");
+    private final Telemetry.NumberEntry wristEncoder =
+        Telemetry.number("ElevatorWrist Wrist Encoder Value");
+    private final Telemetry.NumberEntry wristAmpDrawn =
+        Telemetry.number("ElevatorWrist Amp Drawn").withThreshold(0.1);
+
     private double estimatedWristAngle = 0;
 
     public Trigger elevatorAtAmp = new Trigger(() -> elevatorAtAmp());
@@ -107,13 +128,9 @@ public class ElevatorWrist extends SubsystemBase {
     }
 
     @Override
-    public void periodic() {
-        // Robot.profiler.push("ElevatorWrist periodic");
-        // Robot.profiler.push("updateInputs");
+    protected void profiledPeriodic() {
         io.updateInputs(inputs);
-        // Robot.profiler.swap("processInputs");
         Logger.processInputs("ElevatorWrist", inputs);
-        // Robot.profiler.swap("PID stuff");
         if (inputs.wristAbsoluteEncRawValue > 0.9) {
             inputs.wristAbsoluteEncRawValue -= 1.0;
         }
@@ -192,11 +209,9 @@ public class ElevatorWrist extends SubsystemBase {
             io.setWristVoltage(0);
         }
 
-        // Robot.profiler.swap("Publish to SmartDashboard");
-        SmartDashboard.putNumber("wristError",
-            Rotation2d.fromRotations(wristPIDController.getPositionError()).getDegrees());
+        wristError.set(Units.rotationsToDegrees(wristPIDController.getPositionError()));
 
-        SmartDashboard.putNumber("wristRawEncValue", inputs.wristAbsoluteEncRawValue);
+        wristRawEncValue.set(inputs.wristAbsoluteEncRawValue);
 
         wristAngle.setDouble(calculatedWristAngle.getDegrees());
         elevatorHeight.setDouble(calculatedHeight);
@@ -205,29 +220,20 @@ public class ElevatorWrist extends SubsystemBase {
         Logger.recordOutput("/ElevatorWrist/Wrist/PID setpoint",
             elevatorPIDController.getSetpoint().position);
 
-        SmartDashboard.putNumber("Wrist Goal",
-            Rotation2d.fromRotations(wristPIDController.getSetpoint()).getDegrees());
-        SmartDashboard.putNumber("Wrist Profiled Goal",
-            Rotation2d.fromRotations(wristProfiledPIDController.getSetpoint()).getDegrees());
-        SmartDashboard.putNumber("Elevator PID Voltage", elevatorPIDValue);
-        SmartDashboard.putNumber("Wrist PID Voltage", wristPIDValue);
-        SmartDashboard.putNumber("ElevatorWrist PID setpoint",
-            elevatorPIDController.getSetpoint().position);
-        SmartDashboard.putNumber("ElevatorWrist Left Elevator Encoder Value",
-            inputs.leftElevatorRelativeEncRawValue);
-        SmartDashboard.putNumber("ElevatorWrist Right Elevator Encoder Value",
-            inputs.rightElevatorRelativeEncRawValue);
-        SmartDashboard.putNumber("ElevatorWrist Wrist Encoder Value",
-            inputs.wristAbsoluteEncRawValue);
-        SmartDashboard.putNumber("ElevatorWrist Amp Drawn", inputs.wristMotorAmp);
+        wristGoal.set(Units.rotationsToDegrees(wristPIDController.getSetpoint()));
+        wristProfiledGoal.set(Units.rotationsToDegrees(wristProfiledPIDController.getSetpoint()));
+        elevatorPIDVoltage.set(elevatorPIDValue);
+        wristPIDVoltage.set(wristPIDValue);
+        elevatorPIDSetpoint.set(elevatorPIDController.getSetpoint().position);
+        leftElevatorEncoder.set(inputs.leftElevatorRelativeEncRawValue);
+        rightElevatorEncoder.set(inputs.rightElevatorRelativeEncRawValue);
+        wristEncoder.set(inputs.wristAbsoluteEncRawValue);
+        wristAmpDrawn.set(inputs.wristMotorAmp);
         // Logger.recordOutput("/ElevatorWrist/Wrist/Feedforward", wristFeedForwardValue);
         // Logger.recordOutput("/ElevatorWrist/Wrist/Combined Voltage",
         // wristFeedForwardValue + wristPIDValue);
         Logger.recordOutput("/ElevatorWrist/Wrist/Combined Voltage", wristPIDValue);
-        // Robot.profiler.swap("viz");
         viz.setElevatorWrist(calculatedHeight, calculatedWristAngle);
-        // Robot.profiler.pop();
-        // Robot.profiler.pop();
     }
 
     /**
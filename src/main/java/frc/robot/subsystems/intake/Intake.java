@@ -5,7 +5,7 @@ import edu.wpi.first.networktables.GenericEntry;
 import edu.wpi.first.wpilibj.util.Color;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.Commands;
-import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.lib.profiling.ProfiledSubsystem;
 import frc.lib.viz.PumbaaViz;
 import frc.lib.viz.PumbaaViz.NoteLocation;
 import frc.robot.Constants;
@@ -14,7 +14,7 @@ import frc.robot.RobotContainer;
 /**
  * Intake Subsystem
  */
-public class Intake extends SubsystemBase {
+public class Intake extends ProfiledSubsystem {
     private IntakeIO io;
     private IntakeInputsAutoLogged intakeAutoLogged = new IntakeInputsAutoLogged();
 
@@ -40,7 +40,7 @@ public class Intake extends SubsystemBase {
     }
 
     @Override
-    public void periodic() {
+    protected void profiledPeriodic() {
         io.updateInputs(intakeAutoLogged);
         Logger.processInputs("Intake", intakeAutoLogged);
         if (getIndexerBeamBrakeStatus() && getintakeBeamBrakeStatus()) {
@@ -3,17 +3,17 @@ package frc.robot.subsystems.shooter;
 import org.littletonrobotics.junction.Logger;
 import edu.wpi.first.math.controller.PIDController;
 import edu.wpi.first.wpilibj.Timer;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.Commands;
-import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.lib.profiling.ProfiledSubsystem;
 import frc.lib.util.ReconfigurableSimpleMotorFeedforward;
+import frc.lib.util.Telemetry;
 import frc.robot.Constants;
 
 /**
  * Class for Shooter
  */
-public class Shooter extends SubsystemBase {
+public class Shooter extends ProfiledSubsystem {
     private ShooterIO io;
     private PIDController topPid = new PIDController(Constants.ShooterConstants.KP,
         Constants.ShooterConstants.KI, Constants.ShooterConstants.KD);
@@ -28,6 +28,11 @@ public class Shooter extends SubsystemBase {
     private ShooterIOInputsAutoLogged inputs = new ShooterIOInputsAutoLogged();
     private double lastAtSetpoint = Timer.getFPGATimestamp();
 
+    private final Telemetry.NumberEntry topVoltage =
+        Telemetry.number("Shooter Top Voltage", "Shooter/Top Voltage");
+    private final Telemetry.NumberEntry bottomVoltage =
+        Telemetry.number("Shooter Bottom Voltage", "Shooter/Bottom Voltage");
+
     private double topValue;
     private double bottomValue;
 
@@ -45,7 +50,7 @@ public class Shooter extends SubsystemBase {
     }
 
     @Override
-    public void periodic() {
+    protected void profiledPeriodic() {
         io.updateInputs(inputs);
         Logger.processInputs("Shooter", inputs);
 
@@ -60,8 +65,7 @@ public class Shooter extends SubsystemBase {
      * @param voltage Voltage to apply to motor
      */
     public void setTopMotor(double voltage) {
-        Logger.recordOutput("Shooter/Top Voltage", voltage);
-        SmartDashboard.putNumber("Shooter Top Voltage", voltage);
+        topVoltage.set(voltage);
         io.setTopMotor(voltage);
     }
 
@@ -71,8 +75,7 @@ public class Shooter extends SubsystemBase {
      * @param voltage Voltage to apply to motor
      */
     public void setBottomMotor(double voltage) {
-        Logger.recordOutput("Shooter/Bottom Voltage", voltage);
-        SmartDashboard.putNumber("Shooter Bottom Voltage", voltage);
+        bottomVoltage.set(voltage);
         io.setBottomMotor(voltage);
     }
 
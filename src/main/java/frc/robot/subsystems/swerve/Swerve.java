@@ -1,9 +1,11 @@
 package frc.robot.subsystems.swerve;
 
+import java.util.Arrays;
 import java.util.Optional;
 import org.littletonrobotics.junction.AutoLogOutput;
 import org.littletonrobotics.junction.Logger;
 import com.pathplanner.lib.util.PathPlannerLogging;
+import edu.wpi.first.math.VecBuilder;
 import edu.wpi.first.math.estimator.SwerveDrivePoseEstimator;
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
@@ -14,25 +16,56 @@ import edu.wpi.first.math.kinematics.SwerveModulePosition;
 import edu.wpi.first.math.kinematics.SwerveModuleState;
 import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.DriverStation.Alliance;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.shuffleboard.BuiltInWidgets;
 import edu.wpi.first.wpilibj.smartdashboard.Field2d;
-import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.lib.math.InPlaceSwerveKinematics;
+import frc.lib.math.SwerveSetpointGenerator;
+import frc.lib.profiling.ProfiledSubsystem;
 import frc.lib.util.FieldConstants;
+import frc.lib.util.PoseHistory;
 import frc.lib.util.swerve.SwerveModule;
 import frc.lib.viz.PumbaaViz;
 import frc.robot.Constants;
 import frc.robot.RobotContainer;
+import frc.robot.subsystems.vision.VisionIO;
+import frc.robot.subsystems.vision.VisionInputsAutoLogged;
 
 /**
  * Swerve Subsystem
  */
-public class Swerve extends SubsystemBase {
+public class Swerve extends ProfiledSubsystem {
     public SwerveDrivePoseEstimator swerveOdometry;
     public SwerveModule[] swerveMods;
     private final Field2d field = new Field2d();
     private double fieldOffset;
     private SwerveInputsAutoLogged inputs = new SwerveInputsAutoLogged();
     private SwerveIO swerveIO;
+    private VisionInputsAutoLogged visionInputs = new VisionInputsAutoLogged();
+    private VisionIO visionIO;
+    private final InPlaceSwerveKinematics kinematics =
+        new InPlaceSwerveKinematics(Constants.Swerve.moduleTranslations);
+    private final SwerveSetpointGenerator setpointGenerator =
+        new SwerveSetpointGenerator(Constants.Swerve.maxSpeed,
+            Constants.Swerve.maxModuleAcceleration, Constants.Swerve.maxSteerVelocity,
+            Constants.Swerve.moduleTranslations);
+    // Reused every loop, so driving and odometry only allocate the Rotation2d angles of module
+    // states and positions, see InPlaceSwerveKinematics.updateRotation.
+    private final double[] desiredSpeeds = new double[4];
+    private final double[] desiredAngles = new double[4];
+    private final double[] measuredSpeeds = new double[4];
+    private final double[] measuredAngles = new double[4];
+    private final ChassisSpeeds measuredChassisSpeeds = new ChassisSpeeds();
+    private final PoseHistory poseHistory = new PoseHistory(
+        (int) Math.ceil(Constants.Swerve.odometryFrequency * Constants.Swerve.poseHistorySeconds),
+        Constants.Swerve.maxPoseExtrapolation);
+    private final PoseHistory.Sample historySample = new PoseHistory.Sample();
+    // Indexed by camera, so it only grows the first time a camera reports.
+    private double[] visionResiduals = new double[0];
+    private final SwerveModuleState[] desiredStates = newStates();
+    private final SwerveModuleState[] moduleStates = newStates();
+    private final SwerveModulePosition[] modulePositions = newPositions();
+    private final SwerveModulePosition[] odometryPositions = newPositions();
     // private boolean hasInitialized = false;
     // private Boolean[] cameraSeesTarget = {false, false, false, false};
 
@@ -47,8 +80,9 @@ public class Swerve extends SubsystemBase {
     /**
      * Swerve Subsystem
      */
-    public Swerve(SwerveIO swerveIO, PumbaaViz viz) {
+    public Swerve(SwerveIO swerveIO, VisionIO visionIO, PumbaaViz viz) {
         this.swerveIO = swerveIO;
+        this.visionIO = visionIO;
         this.viz = viz;
         swerveMods = swerveIO.createModules();
         fieldOffset = getGyroYaw().getDegrees();
@@ -90,14 +124,18 @@ public class Swerve extends SubsystemBase {
      */
     public void drive(Translation2d translation, double rotation, boolean fieldRelative,
         boolean isOpenLoop) {
-        // Robot.profiler.push("swerve.drive()");
-        ChassisSpeeds chassisSpeeds = fieldRelative
-            ? ChassisSpeeds.fromFieldRelativeSpeeds(translation.getX(), translation.getY(),
-                rotation, getFieldRelativeHeading())
-            : new ChassisSpeeds(translation.getX(), translation.getY(), rotation);
-
-        setModuleStates(chassisSpeeds);
-        // Robot.profiler.pop();
+        double vx = translation.getX();
+        double vy = translation.getY();
+        if (fieldRelative) {
+            // Same as ChassisSpeeds.fromFieldRelativeSpeeds, without the intermediate objects.
+            double heading = Math.toRadians(getGyroYawDegrees() - fieldOffset);
+            double cos = Math.cos(heading);
+            double sin = Math.sin(heading);
+            double robotVx = vx * cos + vy * sin;
+            vy = -vx * sin + vy * cos;
+            vx = robotVx;
+        }
+        setModuleStates(vx, vy, rotation);
     }
 
     /**
@@ -119,10 +157,38 @@ public class Swerve extends SubsystemBase {
      * @param chassisSpeeds The desired Chassis Speeds
      */
     public void setModuleStates(ChassisSpeeds chassisSpeeds) {
-        ChassisSpeeds targetSpeeds = ChassisSpeeds.discretize(chassisSpeeds, 0.02);
-        SwerveModuleState[] swerveModuleStates =
-            Constants.Swerve.swerveKinematics.toSwerveModuleStates(targetSpeeds);
-        setModuleStates(swerveModuleStates);
+        setModuleStates(chassisSpeeds.vxMetersPerSecond, chassisSpeeds.vyMetersPerSecond,
+            chassisSpeeds.omegaRadiansPerSecond);
+    }
+
+    /**
+     * Sets swerve module states from robot relative speeds. Only allocates a new angle for each
+     * logged desired state whose angle changed. With
+     * {@link Constants.Swerve#setpointGenerator} the modules approach the speeds within their
+     * acceleration and steering limits instead of being set to them directly.
+     *
+     * @param vx Forward velocity in meters per second
+     * @param vy Leftward velocity in meters per second
+     * @param omega Counterclockwise angular velocity in radians per second
+     */
+    private void setModuleStates(double vx, double vy, double omega) {
+        if (Constants.Swerve.setpointGenerator) {
+            setpointGenerator.generate(vx, vy, omega, 0.02, desiredSpeeds, desiredAngles);
+        } else {
+            kinematics.toDiscreteModuleStates(vx, vy, omega, 0.02, desiredSpeeds,
+                desiredAngles);
+            InPlaceSwerveKinematics.desaturate(desiredSpeeds, Constants.Swerve.maxSpeed);
+        }
+        for (int i = 0; i < desiredStates.length; i++) {
+            desiredStates[i].speedMetersPerSecond = desiredSpeeds[i];
+            desiredStates[i].angle =
+                InPlaceSwerveKinematics.updateRotation(desiredStates[i].angle, desiredAngles[i]);
+        }
+        Logger.recordOutput("/Swerve/DesiredStates", desiredStates);
+        for (SwerveModule mod : swerveMods) {
+            mod.setDesiredState(desiredSpeeds[mod.moduleNumber],
+                desiredAngles[mod.moduleNumber], false);
+        }
     }
 
     /**
@@ -131,31 +197,55 @@ public class Swerve extends SubsystemBase {
      * @return The current {@link ChassisSpeeds}
      */
     public ChassisSpeeds getChassisSpeeds() {
-        return Constants.Swerve.swerveKinematics.toChassisSpeeds(getModuleStates());
+        ChassisSpeeds speeds = new ChassisSpeeds();
+        updateChassisSpeeds(speeds);
+        return speeds;
+    }
+
+    private void updateChassisSpeeds(ChassisSpeeds speeds) {
+        for (SwerveModule mod : swerveMods) {
+            measuredSpeeds[mod.moduleNumber] = mod.getSpeedMetersPerSecond();
+            measuredAngles[mod.moduleNumber] = mod.getAngleRadians();
+        }
+        kinematics.toChassisSpeeds(measuredSpeeds, measuredAngles, speeds);
     }
 
     /**
-     * Get Swerve Module States
+     * Get Swerve Module States. The array is reused and overwritten on the next call.
      *
      * @return Array of Swerve Module States
      */
     public SwerveModuleState[] getModuleStates() {
-        SwerveModuleState[] states = new SwerveModuleState[4];
         for (SwerveModule mod : swerveMods) {
-            states[mod.moduleNumber] = mod.getState();
+            mod.getState(moduleStates[mod.moduleNumber]);
         }
-        return states;
+        return moduleStates;
     }
 
     /**
-     * Get Swerve Module Positions
+     * Get Swerve Module Positions. The array is reused and overwritten on the next call.
      *
      * @return Array of Swerve Module Positions
      */
     public SwerveModulePosition[] getModulePositions() {
-        SwerveModulePosition[] positions = new SwerveModulePosition[4];
         for (SwerveModule mod : swerveMods) {
-            positions[mod.moduleNumber] = mod.getPosition();
+            mod.getPosition(modulePositions[mod.moduleNumber]);
+        }
+        return modulePositions;
+    }
+
+    private static SwerveModuleState[] newStates() {
+        SwerveModuleState[] states = new SwerveModuleState[4];
+        for (int i = 0; i < states.length; i++) {
+            states[i] = new SwerveModuleState();
+        }
+        return states;
+    }
+
+    private static SwerveModulePosition[] newPositions() {
+        SwerveModulePosition[] positions = new SwerveModulePosition[4];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = new SwerveModulePosition();
         }
         return positions;
     }
@@ -177,6 +267,7 @@ public class Swerve extends SubsystemBase {
      */
     public void resetOdometry(Pose2d pose) {
         swerveOdometry.resetPosition(getGyroYaw(), getModulePositions(), pose);
+        poseHistory.clear();
         this.swerveIO.setPose(pose);
     }
 
@@ -195,7 +286,14 @@ public class Swerve extends SubsystemBase {
      * @return Current rotation/yaw of gyro as {@link Rotation2d}
      */
     public Rotation2d getGyroYaw() {
-        float yaw = inputs.yaw;
+        return yawToRotation(inputs.yaw);
+    }
+
+    private double getGyroYawDegrees() {
+        return Constants.Swerve.invertGyro ? -inputs.yaw : inputs.yaw;
+    }
+
+    private static Rotation2d yawToRotation(double yaw) {
         return (Constants.Swerve.invertGyro) ? Rotation2d.fromDegrees(-yaw)
             : Rotation2d.fromDegrees(yaw);
     }
@@ -206,7 +304,7 @@ public class Swerve extends SubsystemBase {
      * @return The current field relative heading in {@link Rotation2d}
      */
     public Rotation2d getFieldRelativeHeading() {
-        return Rotation2d.fromDegrees(getGyroYaw().getDegrees() - fieldOffset);
+        return Rotation2d.fromDegrees(getGyroYawDegrees() - fieldOffset);
     }
 
     /**
@@ -222,29 +320,25 @@ public class Swerve extends SubsystemBase {
     // }
 
     @Override
-    public void periodic() {
-        // Robot.profiler.push("swerve_periodic");
-        // Robot.profiler.push("update_inputs");
+    protected void profiledPeriodic() {
         swerveIO.updateInputs(inputs);
-        // Robot.profiler.swap("update_swerve_mods");
+        Logger.processInputs("Swerve", inputs);
         for (var mod : swerveMods) {
             mod.periodic();
         }
-        // Robot.profiler.swap("update_swerve_odometry");
-        swerveOdometry.update(getGyroYaw(), getModulePositions());
-        // Robot.profiler.swap("process_inputs");
-        Logger.processInputs("Swerve", inputs);
-        // Robot.profiler.swap("process_cameras");
+        updateOdometry();
+        if (DriverStation.isDisabled()) {
+            // Start driving from wherever the robot is when it is enabled.
+            setpointGenerator.reset(measuredSpeeds, measuredAngles);
+        }
+        updateVision();
         // for (int i = 0; i < cameras.length; i++) {
         // cameras[i].periodic();
         // cameraSeesTarget[i] = cameras[i].seesTarget();
         // }
-        // Robot.profiler.swap("do_camera_stuff");
         // Logger.recordOutput("/Swerve/hasInitialized", hasInitialized);
         // if (!hasInitialized && !DriverStation.isAutonomous()) {
-        // Robot.profiler.push("init");
         // for (int i = 0; i < cameras.length; i++) {
-        // Robot.profiler.push(cameras[i].inputs.name);
         // var robotPose = cameras[i].getInitialPose();
         // Logger.recordOutput("/Swerve/hasInitialPose[" + i + "]", robotPose.isPresent());
 
@@ -252,53 +346,130 @@ public class Swerve extends SubsystemBase {
         // swerveOdometry.resetPosition(getGyroYaw(), getModulePositions(),
         // robotPose.get().robotPose);
         // hasInitialized = true;
-        // Robot.profiler.pop();
         // break;
         // }
-        // Robot.profiler.pop();
         // }
-        // Robot.profiler.pop();
         // // } else {
-        // Robot.profiler.push("update");
         // for (int i = 0; i < cameras.length; i++) {
-        // Robot.profiler.push(cameras[i].inputs.name);
         // // var result = cameras[i].getEstimatedGlobalPose(getPose());
         // if (result.isPresent()) {
         // if (DriverStation.isAutonomous() && result.get().targetsUsed.size() < 2) {
-        // Robot.profiler.pop();
         // continue;
         // } else if (result.get().targetsUsed.size() == 1
         // && result.get().targetsUsed.get(0).getPoseAmbiguity() > 0.1) {
-        // Robot.profiler.pop();
         // continue;
         // }
         // swerveOdometry.addVisionMeasurement(result.get().estimatedPose.toPose2d(),
         // Timer.getFPGATimestamp() - cameras[i].latency());
         // // }
-        // Robot.profiler.pop();
         // }
-        // Robot.profiler.pop();
         // }
-        // Robot.profiler.swap("update_shuffleboard");
-        // Robot.profiler.push("field");
         // // field.setRobotPose(getPose());
-        // Robot.profiler.swap("apriltag");
         // aprilTagTarget
         // .setBoolean(Arrays.asList(cameraSeesTarget).stream().anyMatch(val -> val == true));
 
-        // Robot.profiler.swap("dist-to-speaker");
         // SmartDashboard.putNumber("Distance to Speaker",
         // FieldConstants.allianceFlip(FieldConstants.Speaker.centerSpeakerOpening)
         // .getTranslation().minus(getPose().getTranslation()).getNorm());
-        // Robot.profiler.swap("simple");
         // SmartDashboard.putBoolean("Has Initialized", hasInitialized);
         // SmartDashboard.putNumber("Gyro Yaw", getGyroYaw().getDegrees());
         // Logger.recordOutput("/Swerve/ActualStates", getModuleStates());
-        // Robot.profiler.pop();
-        // Robot.profiler.pop();
-        // Robot.profiler.swap("viz");
         // viz.setPose(getPose());
-        // Robot.profiler.pop();
+    }
+
+    /**
+     * Apply every odometry sample taken since the last loop, each with its own timestamp, and
+     * record the resulting poses in the pose history. Falls back to a single update from the
+     * latest inputs if there are no samples, e.g. when replaying a log recorded without them.
+     */
+    private void updateOdometry() {
+        // Module velocities are only read once per loop, so every sample gets the same ones.
+        updateChassisSpeeds(measuredChassisSpeeds);
+        int samples = Math.min(inputs.odometryTimestamps.length, inputs.odometryYaws.length);
+        for (SwerveModule mod : swerveMods) {
+            samples = Math.min(samples, mod.getOdometrySampleCount());
+        }
+        if (samples == 0) {
+            Pose2d pose = swerveOdometry.update(getGyroYaw(), getModulePositions());
+            addToHistory(Timer.getFPGATimestamp(), pose);
+            return;
+        }
+        for (int i = 0; i < samples; i++) {
+            for (SwerveModule mod : swerveMods) {
+                mod.getOdometryPosition(i, odometryPositions[mod.moduleNumber]);
+            }
+            Pose2d pose = swerveOdometry.updateWithTime(inputs.odometryTimestamps[i],
+                yawToRotation(inputs.odometryYaws[i]), odometryPositions);
+            addToHistory(inputs.odometryTimestamps[i], pose);
+        }
+        Logger.recordOutput("/Swerve/OdometrySamples", samples);
+    }
+
+    private void addToHistory(double timestamp, Pose2d pose) {
+        double theta = pose.getRotation().getRadians();
+        double cos = pose.getRotation().getCos();
+        double sin = pose.getRotation().getSin();
+        double vx = measuredChassisSpeeds.vxMetersPerSecond;
+        double vy = measuredChassisSpeeds.vyMetersPerSecond;
+        poseHistory.add(timestamp, pose.getX(), pose.getY(), theta, vx * cos - vy * sin,
+            vx * sin + vy * cos, measuredChassisSpeeds.omegaRadiansPerSecond);
+    }
+
+    /**
+     * Get the estimated pose at a past timestamp, interpolated between odometry samples. Times
+     * after the newest sample are extrapolated at the measured velocity, up to
+     * {@link Constants.Swerve#maxPoseExtrapolation}.
+     *
+     * @param timestamp FPGA time in seconds
+     * @return The pose, or the current estimate if there is no history yet
+     */
+    public Pose2d getPoseAt(double timestamp) {
+        if (!poseHistory.get(timestamp, historySample)) {
+            return getPose();
+        }
+        return historySample.toPose2d();
+    }
+
+    /**
+     * Get where the robot is expected to be, assuming it keeps its measured velocity.
+     *
+     * @param secondsAhead How far to look ahead, in seconds
+     * @return The predicted pose
+     */
+    public Pose2d getPredictedPose(double secondsAhead) {
+        return getPoseAt(Timer.getFPGATimestamp() + secondsAhead);
+    }
+
+    /**
+     * Apply the vision measurements posted by the camera threads since the last loop. Run after
+     * odometry, so the estimator has samples up to now to replay them against.
+     */
+    private void updateVision() {
+        visionIO.updateInputs(visionInputs);
+        Logger.processInputs("Vision", visionInputs);
+        // How far each camera's latest measurement is from odometry at the time it was taken, for
+        // tuning the standard deviations.
+        for (int i = 0; i < visionInputs.timestamps.length; i++) {
+            int camera = visionInputs.cameras[i];
+            if (camera >= visionResiduals.length) {
+                visionResiduals = Arrays.copyOf(visionResiduals, camera + 1);
+            }
+            if (poseHistory.get(visionInputs.timestamps[i], historySample)) {
+                visionResiduals[camera] = Math.hypot(visionInputs.poses[i].getX() - historySample.x,
+                    visionInputs.poses[i].getY() - historySample.y);
+            }
+            double xyStdDev = visionInputs.xyStdDevs[i];
+            swerveOdometry.addVisionMeasurement(visionInputs.poses[i], visionInputs.timestamps[i],
+                VecBuilder.fill(xyStdDev, xyStdDev, visionInputs.thetaStdDevs[i]));
+        }
+        if (visionInputs.timestamps.length > 0) {
+            // The estimate is still at the newest odometry sample's time. Keep the corrected pose,
+            // so predictions made later this loop include the correction.
+            Pose2d pose = getPose();
+            poseHistory.replaceNewestPose(pose.getX(), pose.getY(),
+                pose.getRotation().getRadians());
+        }
+        Logger.recordOutput("Vision/Residuals", visionResiduals);
     }
 
     /**
@@ -321,17 +492,6 @@ public class Swerve extends SubsystemBase {
         this.setMotorsZero();
     }
 
-    /**
-     * Gets a list containing all 4 swerve module positions
-     */
-    public SwerveModulePosition[] getSwerveModulePositions() {
-        SwerveModulePosition[] positions = new SwerveModulePosition[4];
-        for (SwerveModule mod : swerveMods) {
-            positions[mod.moduleNumber] = mod.getPosition();
-        }
-        return positions;
-    }
-
     /**
      * Determine whether or not to flight the auto path
      *
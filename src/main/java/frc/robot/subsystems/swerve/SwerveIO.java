@@ -15,6 +15,12 @@ public interface SwerveIO {
         public float yaw;
         public float roll;
         public float pitch;
+        /** Degrees per second, in the same direction as {@link #yaw}. */
+        public double yawRate;
+        /** FPGA seconds of each odometry sample since the last loop. */
+        public double[] odometryTimestamps = new double[] {};
+        /** Gyro yaw at each odometry sample, in the same units and direction as {@link #yaw}. */
+        public double[] odometryYaws = new double[] {};
     }
 
     public default void updateInputs(SwerveInputs inputs) {}
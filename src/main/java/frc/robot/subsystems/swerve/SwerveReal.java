@@ -2,7 +2,11 @@ package frc.robot.subsystems.swerve;
 
 
 import com.studica.frc.AHRS;
+import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.math.geometry.Rotation2d;
+import frc.lib.util.swerve.GyroThread;
+import frc.lib.util.swerve.OdometryThread;
+import frc.lib.util.swerve.SignalRegistry;
 import frc.lib.util.swerve.SwerveModule;
 import frc.lib.util.swerve.SwerveModuleReal;
 import frc.robot.Constants;
@@ -11,27 +15,122 @@ import frc.robot.Constants;
 public class SwerveReal implements SwerveIO {
 
     private AHRS gyro = new AHRS(Constants.Swerve.navXID);
+    private final SignalRegistry signals = new SignalRegistry("/Swerve");
+    private final OdometryThread odometryThread =
+        new OdometryThread(Constants.Swerve.odometryFrequency);
+    private final OdometryThread.Samples odometryTimestamps = odometryThread.timestamps();
+    private final OdometryThread.Samples odometryYaws = Constants.Swerve.gyroThread ? null
+        : odometryThread.registerSupplier(() -> gyro.getYaw());
+    private final GyroThread gyroThread = new GyroThread(gyro);
+    private final GyroThread.Samples gyroSamples = new GyroThread.Samples();
+    // Newest gyro sample from an earlier loop, to interpolate against. NaN until there is one.
+    private double lastGyroTimestamp = Double.NaN;
+    private double lastGyroYaw;
+    private double lastGyroYawRate;
 
     /** Real Swerve Initializer */
     public SwerveReal() {}
 
     @Override
     public void updateInputs(SwerveInputs inputs) {
+        // Modules drain their odometry samples after this, up to the same latched sample.
+        odometryThread.latch();
+        // One CAN round trip for every module. The NavX isn't on CAN, so it is read on its own.
+        signals.refresh();
         inputs.yaw = gyro.getYaw();
         inputs.pitch = gyro.getPitch();
         inputs.roll = gyro.getRoll();
+        inputs.odometryTimestamps = odometryTimestamps.drain();
+        if (Constants.Swerve.gyroThread) {
+            gyroThread.drain(gyroSamples);
+            int count = gyroSamples.timestamps.length;
+            inputs.yawRate = count > 0 ? gyroSamples.yawRates[count - 1] : gyro.getRate();
+            inputs.odometryYaws = gyroYawsAt(inputs.odometryTimestamps, inputs.yaw);
+        } else {
+            inputs.yawRate = gyro.getRate();
+            inputs.odometryYaws = odometryYaws.drain();
+        }
+    }
+
+    /**
+     * Get the gyro yaw at each odometry timestamp, interpolated between the gyro samples around
+     * it, or extrapolated at the yaw rate past either end of them.
+     *
+     * @param times odometry timestamps, oldest first
+     * @param fallback yaw to use if the gyro hasn't produced any samples
+     */
+    private double[] gyroYawsAt(double[] times, double fallback) {
+        double[] result = new double[times.length];
+        // The newest sample from the last loop comes first, so odometry samples taken before this
+        // loop's first gyro sample are interpolated rather than extrapolated.
+        int count = gyroSampleCount();
+        int next = 0;
+        for (int i = 0; i < times.length; i++) {
+            double t = times[i];
+            while (next < count && gyroTime(next) < t) {
+                next++;
+            }
+            if (count == 0) {
+                result[i] = fallback;
+            } else if (next == 0 || next == count) {
+                int nearest = next == 0 ? 0 : count - 1;
+                result[i] = wrapDegrees(
+                    gyroYaw(nearest) + gyroYawRate(nearest) * (t - gyroTime(nearest)));
+            } else {
+                double t0 = gyroTime(next - 1);
+                double yaw0 = gyroYaw(next - 1);
+                double fraction = (t - t0) / (gyroTime(next) - t0);
+                result[i] = wrapDegrees(yaw0 + wrapDegrees(gyroYaw(next) - yaw0) * fraction);
+            }
+        }
+        int drained = gyroSamples.timestamps.length;
+        if (drained > 0) {
+            lastGyroTimestamp = gyroSamples.timestamps[drained - 1];
+            lastGyroYaw = gyroSamples.yaws[drained - 1];
+            lastGyroYawRate = gyroSamples.yawRates[drained - 1];
+        }
+        return result;
+    }
+
+    private int gyroSampleCount() {
+        return gyroSamples.timestamps.length + (Double.isNaN(lastGyroTimestamp) ? 0 : 1);
+    }
+
+    private double gyroTime(int index) {
+        if (Double.isNaN(lastGyroTimestamp)) {
+            return gyroSamples.timestamps[index];
+        }
+        return index == 0 ? lastGyroTimestamp : gyroSamples.timestamps[index - 1];
+    }
+
+    private double gyroYaw(int index) {
+        if (Double.isNaN(lastGyroTimestamp)) {
+            return gyroSamples.yaws[index];
+        }
+        return index == 0 ? lastGyroYaw : gyroSamples.yaws[index - 1];
+    }
+
+    private double gyroYawRate(int index) {
+        if (Double.isNaN(lastGyroTimestamp)) {
+            return gyroSamples.yawRates[index];
+        }
+        return index == 0 ? lastGyroYawRate : gyroSamples.yawRates[index - 1];
+    }
 
+    private static double wrapDegrees(double degrees) {
+        return MathUtil.inputModulus(degrees, -180.0, 180.0);
     }
 
     public SwerveModule createSwerveModule(int moduleNumber, int driveMotorID, int angleMotorID,
         int cancoderID, Rotation2d angleOffset) {
         return new SwerveModule(moduleNumber, angleOffset,
-            new SwerveModuleReal(driveMotorID, angleMotorID, cancoderID, angleOffset));
+            new SwerveModuleReal(driveMotorID, angleMotorID, cancoderID, angleOffset, signals,
+                odometryThread));
     }
 
     @Override
     public SwerveModule[] createModules() {
-        return new SwerveModule[] {
+        SwerveModule[] modules = new SwerveModule[] {
             createSwerveModule(0, Constants.Swerve.Mod0.driveMotorID,
                 Constants.Swerve.Mod0.angleMotorID, Constants.Swerve.Mod0.canCoderID,
                 Constants.Swerve.Mod0.angleOffset),
@@ -44,6 +143,11 @@ public class SwerveReal implements SwerveIO {
             createSwerveModule(3, Constants.Swerve.Mod3.driveMotorID,
                 Constants.Swerve.Mod3.angleMotorID, Constants.Swerve.Mod3.canCoderID,
                 Constants.Swerve.Mod3.angleOffset)};
+        odometryThread.start();
+        if (Constants.Swerve.gyroThread) {
+            gyroThread.start();
+        }
+        return modules;
     }
 
 }
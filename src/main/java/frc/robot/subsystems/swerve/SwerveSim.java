@@ -1,10 +1,13 @@
 package frc.robot.subsystems.swerve;
 
+import org.littletonrobotics.junction.LoggedRobot;
+import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.geometry.Twist2d;
 import edu.wpi.first.math.kinematics.SwerveModulePosition;
 import edu.wpi.first.wpilibj.AnalogGyro;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.simulation.AnalogGyroSim;
 import frc.lib.sim.SimulatedPumbaa;
 import frc.lib.util.swerve.SwerveModule;
@@ -27,6 +30,7 @@ public class SwerveSim implements SwerveIO {
             new SwerveModulePosition(), new SwerveModulePosition()};
 
     private Pose2d currentPose = new Pose2d();
+    private double lastYaw = 0.0;
     private final SimulatedPumbaa pumbaa;
 
     /**
@@ -44,6 +48,11 @@ public class SwerveSim implements SwerveIO {
         } else {
             inputs.yaw = (float) m_gyroSim.getAngle();
         }
+        inputs.yawRate = MathUtil.inputModulus(inputs.yaw - lastYaw, -180.0, 180.0)
+            / LoggedRobot.defaultPeriodSecs;
+        lastYaw = inputs.yaw;
+        inputs.odometryTimestamps = new double[] {Timer.getFPGATimestamp()};
+        inputs.odometryYaws = new double[] {inputs.yaw};
         // inputs.pitch = 0;
         // inputs.roll = 0;
 
@@ -0,0 +1,61 @@
+package frc.robot.subsystems.vision;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Transform3d;
+import frc.lib.util.FieldConstants;
+import frc.lib.util.vision.CameraThread;
+import frc.lib.util.vision.VisionCamera;
+import frc.lib.util.vision.VisionMeasurement;
+import frc.robot.OperatorState;
+
+/**
+ * Vision IO that reads each camera on its own {@link CameraThread}. The threads post measurements
+ * to a lock-free queue, which {@link #updateInputs} drains once per loop.
+ */
+public class VisionCameras implements VisionIO {
+    private final Queue<VisionMeasurement> measurements = new ConcurrentLinkedQueue<>();
+    private final List<VisionMeasurement> drained = new ArrayList<>();
+
+    /**
+     * Start a thread for each camera.
+     *
+     * @param cameras the cameras. Measurements are tagged with the camera's index.
+     * @param robotToCameras position of each camera on the robot.
+     */
+    public VisionCameras(VisionCamera[] cameras, Transform3d[] robotToCameras) {
+        for (int i = 0; i < cameras.length; i++) {
+            new CameraThread(i, cameras[i], robotToCameras[i], FieldConstants.aprilTags,
+                OperatorState::tagFilter, measurements).start();
+        }
+    }
+
+    @Override
+    public void updateInputs(VisionInputs inputs) {
+        drained.clear();
+        VisionMeasurement measurement;
+        while ((measurement = measurements.poll()) != null) {
+            drained.add(measurement);
+        }
+        int count = drained.size();
+        inputs.cameras = new int[count];
+        inputs.timestamps = new double[count];
+        inputs.poses = new Pose2d[count];
+        inputs.tagCounts = new int[count];
+        inputs.xyStdDevs = new double[count];
+        inputs.thetaStdDevs = new double[count];
+        for (int i = 0; i < count; i++) {
+            measurement = drained.get(i);
+            inputs.cameras[i] = measurement.camera();
+            inputs.timestamps[i] = measurement.timestamp();
+            inputs.poses[i] = measurement.pose();
+            inputs.tagCounts[i] = measurement.tagCount();
+            inputs.xyStdDevs[i] = measurement.xyStdDev();
+            inputs.thetaStdDevs[i] = measurement.thetaStdDev();
+        }
+    }
+
+}
@@ -0,0 +1,23 @@
+package frc.robot.subsystems.vision;
+
+import org.littletonrobotics.junction.AutoLog;
+import edu.wpi.first.math.geometry.Pose2d;
+
+/** IO Class for Vision */
+public interface VisionIO {
+
+    /** Inputs Class for Vision. Each index is one measurement taken since the last loop. */
+    @AutoLog
+    public static class VisionInputs {
+        public int[] cameras = new int[] {};
+        /** FPGA seconds when each frame was captured. */
+        public double[] timestamps = new double[] {};
+        public Pose2d[] poses = new Pose2d[] {};
+        public int[] tagCounts = new int[] {};
+        public double[] xyStdDevs = new double[] {};
+        public double[] thetaStdDevs = new double[] {};
+    }
+
+    public default void updateInputs(VisionInputs inputs) {}
+
+}
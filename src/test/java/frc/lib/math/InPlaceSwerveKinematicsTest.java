@@ -0,0 +1,133 @@
+package frc.lib.math;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+
+/**
+ * Checks {@link InPlaceSwerveKinematics} against the WPILib classes it replaces.
+ */
+class InPlaceSwerveKinematicsTest {
+    private static final double EPSILON = 1e-9;
+    private static final double DT = 0.02;
+
+    /** The robot's rectangular layout, and an off-center three-module one. */
+    private static final Translation2d[][] LAYOUTS = {
+        {new Translation2d(0.225, 0.302), new Translation2d(0.225, -0.302),
+            new Translation2d(-0.225, 0.302), new Translation2d(-0.225, -0.302)},
+        {new Translation2d(0.4, 0.1), new Translation2d(-0.2, 0.35),
+            new Translation2d(-0.1, -0.3)}};
+
+    private static final ChassisSpeeds[] SPEEDS = {new ChassisSpeeds(1.0, 0.0, 0.0),
+        new ChassisSpeeds(0.0, -2.0, 0.0), new ChassisSpeeds(0.0, 0.0, 4.0),
+        new ChassisSpeeds(2.0, -1.0, 3.0), new ChassisSpeeds(-1.5, 0.5, -2.0),
+        new ChassisSpeeds(3.0, 3.0, 6.0), new ChassisSpeeds(1e-4, 0.0, 1e-6)};
+
+    @Test
+    void toModuleStatesMatchesWpilib() {
+        for (Translation2d[] layout : LAYOUTS) {
+            InPlaceSwerveKinematics kinematics = new InPlaceSwerveKinematics(layout);
+            SwerveDriveKinematics wpilib = new SwerveDriveKinematics(layout);
+            double[] speeds = new double[layout.length];
+            double[] angles = new double[layout.length];
+            for (ChassisSpeeds chassisSpeeds : SPEEDS) {
+                kinematics.toModuleStates(chassisSpeeds.vxMetersPerSecond,
+                    chassisSpeeds.vyMetersPerSecond, chassisSpeeds.omegaRadiansPerSecond, speeds,
+                    angles);
+                assertStatesEqual(wpilib.toSwerveModuleStates(chassisSpeeds), speeds, angles);
+            }
+        }
+    }
+
+    @Test
+    void toDiscreteModuleStatesMatchesWpilib() {
+        for (Translation2d[] layout : LAYOUTS) {
+            InPlaceSwerveKinematics kinematics = new InPlaceSwerveKinematics(layout);
+            SwerveDriveKinematics wpilib = new SwerveDriveKinematics(layout);
+            double[] speeds = new double[layout.length];
+            double[] angles = new double[layout.length];
+            for (ChassisSpeeds chassisSpeeds : SPEEDS) {
+                kinematics.toDiscreteModuleStates(chassisSpeeds.vxMetersPerSecond,
+                    chassisSpeeds.vyMetersPerSecond, chassisSpeeds.omegaRadiansPerSecond, DT,
+                    speeds, angles);
+                assertStatesEqual(
+                    wpilib.toSwerveModuleStates(ChassisSpeeds.discretize(chassisSpeeds, DT)),
+                    speeds, angles);
+            }
+        }
+    }
+
+    @Test
+    void stoppedChassisKeepsModuleAngles() {
+        InPlaceSwerveKinematics kinematics = new InPlaceSwerveKinematics(LAYOUTS[0]);
+        double[] speeds = {1.0, 1.0, 1.0, 1.0};
+        double[] angles = {0.1, 0.2, 0.3, 0.4};
+        kinematics.toModuleStates(0.0, 0.0, 0.0, speeds, angles);
+        for (int i = 0; i < speeds.length; i++) {
+            assertEquals(0.0, speeds[i]);
+            assertEquals(0.1 * (i + 1), angles[i], EPSILON);
+        }
+    }
+
+    /**
+     * Module states that don't agree with each other, so the least-squares fit matters.
+     */
+    @Test
+    void toChassisSpeedsMatchesWpilib() {
+        Random random = new Random(42);
+        for (Translation2d[] layout : LAYOUTS) {
+            InPlaceSwerveKinematics kinematics = new InPlaceSwerveKinematics(layout);
+            SwerveDriveKinematics wpilib = new SwerveDriveKinematics(layout);
+            double[] speeds = new double[layout.length];
+            double[] angles = new double[layout.length];
+            SwerveModuleState[] states = new SwerveModuleState[layout.length];
+            ChassisSpeeds actual = new ChassisSpeeds();
+            for (int trial = 0; trial < 20; trial++) {
+                for (int i = 0; i < layout.length; i++) {
+                    speeds[i] = random.nextDouble() * 8.0 - 4.0;
+                    angles[i] = random.nextDouble() * 2.0 * Math.PI - Math.PI;
+                    states[i] = new SwerveModuleState(speeds[i], new Rotation2d(angles[i]));
+                }
+                kinematics.toChassisSpeeds(speeds, angles, actual);
+                ChassisSpeeds expected = wpilib.toChassisSpeeds(states);
+                assertEquals(expected.vxMetersPerSecond, actual.vxMetersPerSecond, EPSILON);
+                assertEquals(expected.vyMetersPerSecond, actual.vyMetersPerSecond, EPSILON);
+                assertEquals(expected.omegaRadiansPerSecond, actual.omegaRadiansPerSecond,
+                    EPSILON);
+            }
+        }
+    }
+
+    @Test
+    void desaturateMatchesWpilib() {
+        double[][] cases = {{1.0, -2.0, 0.5, 1.5}, {5.0, -6.0, 2.0, 0.0}, {-3.0, 3.0, 3.0, -3.0}};
+        for (double[] speeds : cases) {
+            SwerveModuleState[] states = new SwerveModuleState[speeds.length];
+            for (int i = 0; i < speeds.length; i++) {
+                states[i] = new SwerveModuleState(speeds[i], new Rotation2d());
+            }
+            SwerveDriveKinematics.desaturateWheelSpeeds(states, 3.0);
+            InPlaceSwerveKinematics.desaturate(speeds, 3.0);
+            for (int i = 0; i < speeds.length; i++) {
+                assertEquals(states[i].speedMetersPerSecond, speeds[i], EPSILON);
+            }
+        }
+    }
+
+    private static void assertStatesEqual(SwerveModuleState[] expected, double[] speeds,
+        double[] angles) {
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i].speedMetersPerSecond, speeds[i], EPSILON);
+            if (speeds[i] > EPSILON) {
+                assertEquals(0.0,
+                    MathUtil.angleModulus(expected[i].angle.getRadians() - angles[i]), EPSILON);
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package frc.lib.math;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Translation2d;
+
+/**
+ * Checks that {@link SwerveSetpointGenerator} keeps to its limits and still gets where it was asked
+ * to go.
+ */
+class SwerveSetpointGeneratorTest {
+    private static final double EPSILON = 1e-9;
+    private static final double DT = 0.02;
+    private static final double MAX_SPEED = 3.0;
+    private static final double MAX_ACCELERATION = 6.0;
+    private static final double MAX_STEER_VELOCITY = 20.0;
+
+    private static final Translation2d[] LAYOUT =
+        {new Translation2d(0.225, 0.302), new Translation2d(0.225, -0.302),
+            new Translation2d(-0.225, 0.302), new Translation2d(-0.225, -0.302)};
+
+    /** Forward, reverse, strafe, spin, a mix, one past the maximum speed, and stop. */
+    private static final double[][] REQUESTS = {{2.0, 0.0, 0.0}, {-2.0, 0.0, 0.0},
+        {0.0, 1.5, 0.0}, {0.0, 0.0, 4.0}, {1.5, -1.0, 3.0}, {3.0, 3.0, 6.0}, {0.0, 0.0, 0.0}};
+
+    private final SwerveSetpointGenerator generator =
+        new SwerveSetpointGenerator(MAX_SPEED, MAX_ACCELERATION, MAX_STEER_VELOCITY, LAYOUT);
+    private final double[] speeds = new double[LAYOUT.length];
+    private final double[] angles = new double[LAYOUT.length];
+
+    @Test
+    void staysWithinLimits() {
+        Random random = new Random(42);
+        double[] lastSpeeds = new double[LAYOUT.length];
+        double[] lastAngles = new double[LAYOUT.length];
+        generator.reset(lastSpeeds, lastAngles);
+        double[] request = REQUESTS[0];
+        for (int call = 0; call < 2000; call++) {
+            if (call % 25 == 0) {
+                request = call / 25 < REQUESTS.length ? REQUESTS[call / 25]
+                    : new double[] {random.nextDouble() * 6.0 - 3.0,
+                        random.nextDouble() * 6.0 - 3.0, random.nextDouble() * 12.0 - 6.0};
+            }
+            generator.generate(request[0], request[1], request[2], DT, speeds, angles);
+            for (int i = 0; i < LAYOUT.length; i++) {
+                double dx =
+                    speeds[i] * Math.cos(angles[i]) - lastSpeeds[i] * Math.cos(lastAngles[i]);
+                double dy =
+                    speeds[i] * Math.sin(angles[i]) - lastSpeeds[i] * Math.sin(lastAngles[i]);
+                assertTrue(Math.hypot(dx, dy) <= MAX_ACCELERATION * DT + EPSILON,
+                    "module " + i + " accelerated too fast on call " + call);
+                double steer = MathUtil.angleModulus(angles[i] - lastAngles[i]);
+                assertTrue(Math.abs(steer) <= MAX_STEER_VELOCITY * DT + EPSILON,
+                    "module " + i + " steered too fast on call " + call);
+                assertTrue(Math.abs(speeds[i]) <= MAX_SPEED + EPSILON);
+                lastSpeeds[i] = speeds[i];
+                lastAngles[i] = angles[i];
+            }
+        }
+    }
+
+    @Test
+    void convergesToRequest() {
+        InPlaceSwerveKinematics kinematics = new InPlaceSwerveKinematics(LAYOUT);
+        double[] expectedSpeeds = new double[LAYOUT.length];
+        double[] expectedAngles = new double[LAYOUT.length];
+        for (double[] request : REQUESTS) {
+            generator.reset(new double[LAYOUT.length], new double[LAYOUT.length]);
+            for (int call = 0; call < 100; call++) {
+                generator.generate(request[0], request[1], request[2], DT, speeds, angles);
+            }
+            kinematics.toDiscreteModuleStates(request[0], request[1], request[2], DT,
+                expectedSpeeds, expectedAngles);
+            InPlaceSwerveKinematics.desaturate(expectedSpeeds, MAX_SPEED);
+            // Compare velocities, since a module may have reversed instead of turning around.
+            for (int i = 0; i < LAYOUT.length; i++) {
+                assertEquals(expectedSpeeds[i] * Math.cos(expectedAngles[i]),
+                    speeds[i] * Math.cos(angles[i]), EPSILON);
+                assertEquals(expectedSpeeds[i] * Math.sin(expectedAngles[i]),
+                    speeds[i] * Math.sin(angles[i]), EPSILON);
+            }
+        }
+    }
+
+    @Test
+    void stoppedModuleSteersInPlace() {
+        generator.reset(new double[LAYOUT.length], new double[LAYOUT.length]);
+        double direction = Math.atan2(2.0, 0.5);
+        double maxSteerStep = MAX_STEER_VELOCITY * DT;
+        // Until the wheels are within a step of the direction, they turn without driving.
+        for (int call = 1; call * maxSteerStep < direction; call++) {
+            generator.generate(0.5, 2.0, 0.0, DT, speeds, angles);
+            for (int i = 0; i < LAYOUT.length; i++) {
+                assertEquals(0.0, speeds[i]);
+                assertEquals(call * maxSteerStep, angles[i], EPSILON);
+            }
+        }
+        generator.generate(0.5, 2.0, 0.0, DT, speeds, angles);
+        for (int i = 0; i < LAYOUT.length; i++) {
+            assertEquals(direction, angles[i], EPSILON);
+            assertEquals(MAX_ACCELERATION * DT, speeds[i], EPSILON);
+        }
+    }
+}
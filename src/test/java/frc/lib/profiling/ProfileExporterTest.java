@@ -0,0 +1,63 @@
+package frc.lib.profiling;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Round-trips a {@link ProfileNodeTable} through the {@link ProfileWriter} and back through the
+ * {@link ProfileExporter}'s readers, so the formats and their readers can't drift apart.
+ */
+class ProfileExporterTest {
+    private static final int ROOT = Profiler.intern("root");
+    private static final int DRIVE = Profiler.intern("drive");
+    private static final int ODOMETRY = Profiler.intern("odometry");
+    private static final int VISION = Profiler.intern("vision");
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    /** Self time of each path in microseconds, from the times recorded by {@link #newTable()}. */
+    private static final Map<String, Long> EXPECTED = Map.of("root", 5000L, "root;drive", 8000L,
+        "root;drive;odometry", 5000L, "root;vision", 4000L);
+
+    private final ProfileWriter writer = new ProfileWriter(System::nanoTime, NANOS_PER_MILLI,
+        new ProfileLoggingFormat[] {new BinaryProfileLoggingFormat(),
+            new JsonProfileLoggingFormat()});
+
+    @Test
+    void binaryProfileRoundTrips() throws IOException {
+        Object[] outputs = writer.write(newTable());
+        assertEquals(EXPECTED, ProfileExporter.foldBinaryProfile((byte[]) outputs[0]));
+    }
+
+    @Test
+    void jsonProfileRoundTrips() throws IOException {
+        Object[] outputs = writer.write(newTable());
+        assertEquals(EXPECTED, ProfileExporter
+            .foldJsonProfile(((String) outputs[1]).getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Two ticks of a small tree, with times in nanoseconds. Allocations and overruns are large
+     * enough to take several varint bytes, so a field the reader skips wrongly shifts everything
+     * after it.
+     */
+    private static ProfileNodeTable newTable() {
+        ProfileNodeTable table = new ProfileNodeTable();
+        int root = table.child(ProfileNodeTable.SENTINEL, ROOT);
+        int drive = table.child(root, DRIVE);
+        int odometry = table.child(drive, ODOMETRY);
+        int vision = table.child(root, VISION);
+        table.record(root, 10_000_000L, 3_000_000_000L);
+        table.record(drive, 6_000_000L, 2_000_000_000L);
+        table.record(odometry, 2_000_000L, 1_000_000L);
+        table.record(vision, 4_000_000L, 500_000L);
+        table.record(root, 12_000_000L, 3_000_000_000L);
+        table.record(drive, 7_000_000L, 2_000_000_000L);
+        table.record(odometry, 3_000_000L, 1_000_000L);
+        table.overruns[root] = 1_000_000L;
+        table.overruns[drive] = 70_000L;
+        return table;
+    }
+}
@@ -0,0 +1,54 @@
+package frc.lib.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.NoSuchElementException;
+import org.junit.jupiter.api.Test;
+
+class DoubleArrayListTest {
+
+    @Test
+    void growsPastInitialCapacity() {
+        DoubleArrayList list = new DoubleArrayList();
+        for (int i = 0; i < 1000; i++) {
+            list.add(i * 0.5);
+        }
+        assertEquals(1000, list.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i * 0.5, list.get(i));
+        }
+    }
+
+    @Test
+    void insertsAndRemovesInTheMiddle() {
+        DoubleArrayList list = DoubleArrayList.of(1.0, 2.0, 4.0);
+        list.add(2, 3.0);
+        assertArrayEquals(new double[] {1.0, 2.0, 3.0, 4.0}, list.toArray());
+        assertEquals(2.0, list.remove(1));
+        assertArrayEquals(new double[] {1.0, 3.0, 4.0}, list.toArray());
+        assertEquals(4.0, list.remove(2));
+        assertArrayEquals(new double[] {1.0, 3.0}, list.toArray());
+        list.removeRange(0, 1);
+        assertArrayEquals(new double[] {3.0}, list.toArray());
+    }
+
+    @Test
+    void worksAsAStack() {
+        DoubleArrayList list = new DoubleArrayList();
+        assertThrows(NoSuchElementException.class, list::removeLast);
+        list.add(1.5);
+        list.add(2.5);
+        assertEquals(2.5, list.removeLast());
+        assertEquals(1.5, list.getLast());
+    }
+
+    @Test
+    void findsElementsLikeDoubleCompare() {
+        DoubleArrayList list = DoubleArrayList.of(0.0, Double.NaN);
+        assertEquals(1, list.indexOf(Double.NaN));
+        assertEquals(-1, list.indexOf(-0.0));
+        assertTrue(list.contains(0.0));
+    }
+}
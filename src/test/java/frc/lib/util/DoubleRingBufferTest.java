@@ -0,0 +1,68 @@
+package frc.lib.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.NoSuchElementException;
+import org.junit.jupiter.api.Test;
+
+class DoubleRingBufferTest {
+
+    @Test
+    void overwritesOldestOnceFull() {
+        DoubleRingBuffer buffer = new DoubleRingBuffer(3);
+        for (int i = 0; i < 3; i++) {
+            buffer.add(i);
+        }
+        assertTrue(buffer.isFull());
+        buffer.add(3.0);
+        buffer.add(4.0);
+        assertEquals(3, buffer.size());
+        assertEquals(2.0, buffer.getFirst());
+        assertEquals(4.0, buffer.getLast());
+        assertEquals(2.0, buffer.get(0));
+        assertEquals(3.0, buffer.get(1));
+        assertEquals(4.0, buffer.get(2));
+    }
+
+    @Test
+    void copiesAcrossTheWrap() {
+        DoubleRingBuffer buffer = new DoubleRingBuffer(4);
+        for (int i = 0; i < 6; i++) {
+            buffer.add(i);
+        }
+        double[] out = new double[5];
+        assertEquals(4, buffer.toArray(out, 1));
+        assertArrayEquals(new double[] {0.0, 2.0, 3.0, 4.0, 5.0}, out);
+    }
+
+    @Test
+    void removesFromBothEnds() {
+        DoubleRingBuffer buffer = new DoubleRingBuffer(3);
+        for (int i = 0; i < 5; i++) {
+            buffer.add(i);
+        }
+        assertEquals(2.0, buffer.removeFirst());
+        assertEquals(4.0, buffer.removeLast());
+        assertEquals(1, buffer.size());
+        buffer.add(5.0);
+        buffer.add(6.0);
+        assertEquals(3.0, buffer.get(0));
+        assertEquals(6.0, buffer.get(2));
+        assertFalse(buffer.isEmpty());
+    }
+
+    @Test
+    void rejectsAccessPastTheEnd() {
+        DoubleRingBuffer buffer = new DoubleRingBuffer(2);
+        assertThrows(NoSuchElementException.class, buffer::getFirst);
+        assertThrows(NoSuchElementException.class, buffer::removeLast);
+        buffer.add(1.0);
+        assertThrows(IndexOutOfBoundsException.class, () -> buffer.get(1));
+        buffer.clear();
+        assertTrue(buffer.isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> new DoubleRingBuffer(0));
+    }
+}
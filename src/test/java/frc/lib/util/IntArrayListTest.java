@@ -0,0 +1,85 @@
+package frc.lib.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.NoSuchElementException;
+import org.junit.jupiter.api.Test;
+
+class IntArrayListTest {
+
+    @Test
+    void growsPastInitialCapacity() {
+        IntArrayList list = new IntArrayList();
+        for (int i = 0; i < 1000; i++) {
+            list.add(i);
+        }
+        assertEquals(1000, list.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, list.get(i));
+        }
+    }
+
+    @Test
+    void insertsAndRemovesInTheMiddle() {
+        IntArrayList list = IntArrayList.of(1, 2, 4);
+        list.add(2, 3);
+        assertArrayEquals(new int[] {1, 2, 3, 4}, list.toArray());
+        assertEquals(2, list.remove(1));
+        assertArrayEquals(new int[] {1, 3, 4}, list.toArray());
+        assertEquals(4, list.remove(2));
+        assertEquals(1, list.remove(0));
+        assertArrayEquals(new int[] {3}, list.toArray());
+    }
+
+    @Test
+    void removesRanges() {
+        IntArrayList list = IntArrayList.of(0, 1, 2, 3, 4, 5);
+        list.removeRange(1, 4);
+        assertArrayEquals(new int[] {0, 4, 5}, list.toArray());
+        list.removeRange(1, 1);
+        assertEquals(3, list.size());
+    }
+
+    @Test
+    void worksAsAStack() {
+        IntArrayList list = new IntArrayList();
+        assertThrows(NoSuchElementException.class, list::getLast);
+        assertThrows(NoSuchElementException.class, list::removeLast);
+        list.add(7);
+        list.add(8);
+        assertEquals(8, list.getLast());
+        assertEquals(8, list.removeLast());
+        assertEquals(7, list.removeLast());
+        assertTrue(list.isEmpty());
+    }
+
+    @Test
+    void findsElements() {
+        IntArrayList list = IntArrayList.of(5, 6, 5);
+        assertEquals(0, list.indexOf(5));
+        assertEquals(1, list.indexOf(6));
+        assertEquals(-1, list.indexOf(7));
+        assertFalse(list.contains(7));
+    }
+
+    @Test
+    void checksIndices() {
+        IntArrayList list = IntArrayList.of(1);
+        assertThrows(IndexOutOfBoundsException.class, () -> list.get(1));
+        assertThrows(IndexOutOfBoundsException.class, () -> list.remove(1));
+        assertThrows(IndexOutOfBoundsException.class, () -> list.add(2, 0));
+    }
+
+    @Test
+    void clonesAreIndependent() {
+        IntArrayList list = IntArrayList.of(1, 2);
+        IntArrayList copy = list.clone();
+        copy.set(0, 9);
+        copy.add(3);
+        assertArrayEquals(new int[] {1, 2}, list.toArray());
+        assertArrayEquals(new int[] {9, 2, 3}, copy.toArray());
+    }
+}
@@ -0,0 +1,92 @@
+package frc.lib.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class IntObjectHashMapTest {
+
+    @Test
+    void putsGetsAndReplaces() {
+        IntObjectHashMap<String> map = new IntObjectHashMap<>();
+        assertNull(map.put(0, "zero"));
+        assertNull(map.put(-5, "minus five"));
+        assertEquals("zero", map.put(0, "nothing"));
+        assertEquals("nothing", map.get(0));
+        assertEquals("minus five", map.get(-5));
+        assertNull(map.get(1));
+        assertEquals("default", map.getOrDefault(1, "default"));
+        assertTrue(map.containsKey(-5));
+        assertEquals(2, map.size());
+        assertThrows(NullPointerException.class, () -> map.put(1, null));
+    }
+
+    @Test
+    void growsPastInitialCapacity() {
+        IntObjectHashMap<Integer> map = new IntObjectHashMap<>(2);
+        for (int i = 0; i < 10_000; i++) {
+            map.put(i, i);
+        }
+        assertEquals(10_000, map.size());
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(i, map.get(i));
+        }
+    }
+
+    @Test
+    void handlesKeysDifferingOnlyInHighBits() {
+        IntObjectHashMap<Integer> map = new IntObjectHashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            map.put(i << 20, i);
+        }
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, map.get(i << 20));
+        }
+    }
+
+    /**
+     * Removing from the middle of a probe run has to shift the rest of the run back, or later
+     * entries become unreachable. A small table and many keys make long runs.
+     */
+    @Test
+    void removesWithBackwardShift() {
+        IntObjectHashMap<Integer> map = new IntObjectHashMap<>();
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(1234);
+        for (int step = 0; step < 50_000; step++) {
+            int key = random.nextInt(64) - 32;
+            if (random.nextBoolean()) {
+                assertEquals(expected.put(key, step), map.put(key, step));
+            } else {
+                assertEquals(expected.remove(key), map.remove(key));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (int key = -32; key < 32; key++) {
+            assertEquals(expected.get(key), map.get(key));
+        }
+    }
+
+    @Test
+    void visitsEveryMappingAndClears() {
+        IntObjectHashMap<Integer> map = new IntObjectHashMap<>();
+        for (int i = 0; i < 100; i++) {
+            map.put(i * 7, i);
+        }
+        Map<Integer, Integer> seen = new HashMap<>();
+        map.forEach((key, value) -> seen.put(key, value));
+        assertEquals(100, seen.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, seen.get(i * 7));
+        }
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertFalse(map.containsKey(0));
+    }
+}
@@ -0,0 +1,68 @@
+package frc.lib.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.NoSuchElementException;
+import org.junit.jupiter.api.Test;
+
+class LongRingBufferTest {
+
+    @Test
+    void overwritesOldestOnceFull() {
+        LongRingBuffer buffer = new LongRingBuffer(3);
+        for (int i = 0; i < 3; i++) {
+            buffer.add(i);
+        }
+        assertTrue(buffer.isFull());
+        buffer.add(3);
+        buffer.add(4);
+        assertEquals(3, buffer.size());
+        assertEquals(2, buffer.getFirst());
+        assertEquals(4, buffer.getLast());
+        assertEquals(2, buffer.get(0));
+        assertEquals(3, buffer.get(1));
+        assertEquals(4, buffer.get(2));
+    }
+
+    @Test
+    void copiesAcrossTheWrap() {
+        LongRingBuffer buffer = new LongRingBuffer(4);
+        for (int i = 0; i < 6; i++) {
+            buffer.add(i);
+        }
+        long[] out = new long[5];
+        assertEquals(4, buffer.toArray(out, 1));
+        assertArrayEquals(new long[] {0, 2, 3, 4, 5}, out);
+    }
+
+    @Test
+    void removesFromBothEnds() {
+        LongRingBuffer buffer = new LongRingBuffer(3);
+        for (int i = 0; i < 5; i++) {
+            buffer.add(i);
+        }
+        assertEquals(2, buffer.removeFirst());
+        assertEquals(4, buffer.removeLast());
+        assertEquals(1, buffer.size());
+        buffer.add(5);
+        buffer.add(6);
+        assertEquals(3, buffer.get(0));
+        assertEquals(6, buffer.get(2));
+        assertFalse(buffer.isEmpty());
+    }
+
+    @Test
+    void rejectsAccessPastTheEnd() {
+        LongRingBuffer buffer = new LongRingBuffer(2);
+        assertThrows(NoSuchElementException.class, buffer::getFirst);
+        assertThrows(NoSuchElementException.class, buffer::removeLast);
+        buffer.add(1);
+        assertThrows(IndexOutOfBoundsException.class, () -> buffer.get(1));
+        buffer.clear();
+        assertTrue(buffer.isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> new LongRingBuffer(0));
+    }
+}
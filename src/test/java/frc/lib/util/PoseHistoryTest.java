@@ -0,0 +1,121 @@
+package frc.lib.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+class PoseHistoryTest {
+    private static final double EPSILON = 1e-9;
+
+    private final PoseHistory.Sample sample = new PoseHistory.Sample();
+
+    @Test
+    void emptyHistoryLeavesSampleUntouched() {
+        PoseHistory history = new PoseHistory(4, 0.1);
+        sample.x = 7.0;
+        assertFalse(history.get(1.0, sample));
+        assertEquals(7.0, sample.x);
+    }
+
+    @Test
+    void interpolatesBetweenTheSurroundingSamples() {
+        PoseHistory history = new PoseHistory(128, 0.1);
+        // x = 2t and y = -t, at uneven times so each lookup needs the right pair.
+        for (int i = 0; i < 100; i++) {
+            double t = i * 0.01 + (i % 3) * 0.002;
+            history.add(t, 2.0 * t, -t, 0.0, 2.0, -1.0, 0.0);
+        }
+        for (double t = 0.0005; t < 0.99; t += 0.0137) {
+            assertTrue(history.get(t, sample));
+            assertEquals(t, sample.timestamp, EPSILON);
+            assertEquals(2.0 * t, sample.x, EPSILON);
+            assertEquals(-t, sample.y, EPSILON);
+            assertEquals(2.0, sample.vx, EPSILON);
+        }
+    }
+
+    @Test
+    void searchesOnlyTheKeptSamplesOnceFull() {
+        PoseHistory history = new PoseHistory(8, 0.1);
+        for (int i = 0; i < 20; i++) {
+            history.add(i, i * 10.0, 0.0, 0.0, 0.0, 0.0, 0.0);
+        }
+        assertEquals(8, history.size());
+        history.get(15.25, sample);
+        assertEquals(152.5, sample.x, EPSILON);
+        // Before the oldest kept sample, 12.
+        history.get(3.0, sample);
+        assertEquals(12.0, sample.timestamp);
+        assertEquals(120.0, sample.x);
+    }
+
+    @Test
+    void interpolatesHeadingTheShortWayAcrossPi() {
+        PoseHistory history = new PoseHistory(4, 0.1);
+        history.add(0.0, 0.0, 0.0, Math.PI - 0.1, 0.0, 0.0, 0.0);
+        history.add(1.0, 0.0, 0.0, -Math.PI + 0.1, 0.0, 0.0, 0.0);
+        history.get(0.5, sample);
+        assertEquals(Math.PI, Math.abs(sample.theta), EPSILON);
+        history.get(0.75, sample);
+        assertEquals(-Math.PI + 0.05, sample.theta, EPSILON);
+        history.get(0.25, sample);
+        assertEquals(Math.PI - 0.05, sample.theta, EPSILON);
+    }
+
+    @Test
+    void extrapolatesUpToTheLimit() {
+        PoseHistory history = new PoseHistory(4, 0.1);
+        history.add(0.0, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0);
+        history.add(1.0, 1.0, 2.0, Math.PI - 0.1, 1.0, -2.0, 2.0);
+        history.get(1.025, sample);
+        assertEquals(1.025, sample.timestamp, EPSILON);
+        assertEquals(1.025, sample.x, EPSILON);
+        assertEquals(1.95, sample.y, EPSILON);
+        assertEquals(Math.PI - 0.05, sample.theta, EPSILON);
+        // Past the limit, and the heading wraps.
+        history.get(5.0, sample);
+        assertEquals(1.1, sample.timestamp, EPSILON);
+        assertEquals(1.1, sample.x, EPSILON);
+        assertEquals(1.8, sample.y, EPSILON);
+        assertEquals(-Math.PI + 0.1, sample.theta, EPSILON);
+        assertEquals(1.0, sample.vx);
+    }
+
+    @Test
+    void returnsOldestBeforeHistoryStarts() {
+        PoseHistory history = new PoseHistory(4, 0.1);
+        history.add(1.0, 3.0, 4.0, 0.5, 1.0, 1.0, 1.0);
+        history.add(2.0, 5.0, 6.0, 0.7, 1.0, 1.0, 1.0);
+        history.get(0.0, sample);
+        assertEquals(1.0, sample.timestamp);
+        assertEquals(3.0, sample.x);
+        assertEquals(4.0, sample.y);
+        assertEquals(0.5, sample.theta);
+    }
+
+    @Test
+    void ignoresSamplesOutOfOrder() {
+        PoseHistory history = new PoseHistory(4, 0.1);
+        history.add(1.0, 1.0, 0.0, 0.0, 0.0, 0.0, 0.0);
+        history.add(1.0, 2.0, 0.0, 0.0, 0.0, 0.0, 0.0);
+        history.add(0.5, 3.0, 0.0, 0.0, 0.0, 0.0, 0.0);
+        assertEquals(1, history.size());
+        history.get(1.0, sample);
+        assertEquals(1.0, sample.x);
+    }
+
+    @Test
+    void replacesNewestPoseKeepingVelocity() {
+        PoseHistory history = new PoseHistory(4, 0.1);
+        history.add(0.0, 0.0, 0.0, 0.0, 1.0, 0.0, 0.0);
+        history.add(1.0, 1.0, 0.0, 0.0, 1.0, 0.0, 0.0);
+        history.replaceNewestPose(1.5, 0.5, 0.25);
+        history.get(1.1, sample);
+        assertEquals(1.6, sample.x, EPSILON);
+        assertEquals(0.5, sample.y, EPSILON);
+        assertEquals(0.25, sample.theta, EPSILON);
+        history.get(0.5, sample);
+        assertEquals(0.75, sample.x, EPSILON);
+    }
+}
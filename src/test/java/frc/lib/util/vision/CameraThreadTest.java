@@ -0,0 +1,122 @@
+package frc.lib.util.vision;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.IntPredicate;
+import org.junit.jupiter.api.Test;
+import edu.wpi.first.apriltag.AprilTag;
+import edu.wpi.first.apriltag.AprilTagFieldLayout;
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Pose3d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Rotation3d;
+import edu.wpi.first.math.geometry.Transform3d;
+import edu.wpi.first.math.geometry.Translation3d;
+import frc.robot.Constants;
+
+/**
+ * Runs frames rendered by {@link VisionCameraSim} through {@link CameraThread#estimate}.
+ */
+class CameraThreadTest {
+    /** Two tags side by side, facing down the field towards the robot. */
+    private static final AprilTagFieldLayout LAYOUT = new AprilTagFieldLayout(
+        List.of(new AprilTag(1, new Pose3d(4.0, 3.5, 0.6, new Rotation3d(0.0, 0.0, Math.PI))),
+            new AprilTag(2, new Pose3d(4.0, 4.5, 0.6, new Rotation3d(0.0, 0.0, Math.PI)))),
+        16.54, 8.21);
+    /** Off center, turned and tilted up, so getting the transform backwards moves the pose. */
+    private static final Transform3d ROBOT_TO_CAMERA = new Transform3d(
+        new Translation3d(0.3, -0.2, 0.4), new Rotation3d(0.0, -0.15, 0.1));
+    private static final Pose2d ROBOT = new Pose2d(1.5, 4.1, new Rotation2d(0.05));
+
+    private final VisionCameraSim camera =
+        new VisionCameraSim("test", ROBOT_TO_CAMERA, () -> ROBOT, LAYOUT, 42);
+
+    @Test
+    void recoversRobotPose() {
+        CameraThread thread = newThread(id -> true);
+        int frames = 50;
+        double x = 0.0;
+        double y = 0.0;
+        double theta = 0.0;
+        for (int i = 0; i < frames; i++) {
+            VisionFrame frame = new VisionFrame(i, camera.render(new Pose3d(ROBOT)));
+            VisionMeasurement measurement = thread.estimate(frame);
+            assertNotNull(measurement);
+            assertEquals(3, measurement.camera());
+            assertEquals(i, measurement.timestamp());
+            assertEquals(2, measurement.tagCount());
+            x += measurement.pose().getX();
+            y += measurement.pose().getY();
+            theta += measurement.pose().getRotation().getRadians();
+        }
+        // The noise averages out over the frames.
+        assertEquals(ROBOT.getX(), x / frames, 0.05);
+        assertEquals(ROBOT.getY(), y / frames, 0.05);
+        assertEquals(ROBOT.getRotation().getRadians(), theta / frames, 0.02);
+    }
+
+    @Test
+    void rejectsAmbiguousSingleTag() {
+        CameraThread thread = newThread(id -> true);
+        List<TagObservation> tags = camera.render(new Pose3d(ROBOT));
+        TagObservation tag = tags.get(0);
+        // Seen nearly face-on, which the simulation makes ambiguous.
+        assertTrue(tag.ambiguity() > Constants.CameraConstants.MAX_AMBIGUITY);
+        assertNull(thread.estimate(new VisionFrame(0.0, List.of(tag))));
+        TagObservation certain =
+            new TagObservation(tag.id(), tag.bestCameraToTag(), tag.altCameraToTag(), 0.0);
+        assertNotNull(thread.estimate(new VisionFrame(0.0, List.of(certain))));
+        // With another tag in view, ambiguity doesn't matter.
+        assertNotNull(thread.estimate(new VisionFrame(0.0, tags)));
+    }
+
+    @Test
+    void dropsFilteredTags() {
+        List<TagObservation> tags = new ArrayList<>();
+        for (TagObservation tag : camera.render(new Pose3d(ROBOT))) {
+            tags.add(
+                new TagObservation(tag.id(), tag.bestCameraToTag(), tag.altCameraToTag(), 0.0));
+        }
+        VisionFrame frame = new VisionFrame(0.0, tags);
+        assertNull(newThread(id -> false).estimate(frame));
+        VisionMeasurement measurement = newThread(id -> id != 2).estimate(frame);
+        assertNotNull(measurement);
+        assertEquals(1, measurement.tagCount());
+    }
+
+    @Test
+    void dropsPosesOffTheField() {
+        Pose2d offField = new Pose2d(-1.5, 4.1, new Rotation2d(0.05));
+        List<TagObservation> tags = camera.render(new Pose3d(offField));
+        assertEquals(2, tags.size());
+        assertNull(newThread(id -> true).estimate(new VisionFrame(0.0, tags)));
+    }
+
+    @Test
+    void stdDevsGrowWithDistance() {
+        CameraThread thread = newThread(id -> true);
+        VisionMeasurement near =
+            thread.estimate(new VisionFrame(0.0, camera.render(new Pose3d(ROBOT))));
+        Pose2d far = new Pose2d(0.0, 4.1, new Rotation2d(0.05));
+        VisionMeasurement farther =
+            thread.estimate(new VisionFrame(0.0, camera.render(new Pose3d(far))));
+        assertEquals(far.getX(), farther.pose().getX(), 0.5);
+        assertEquals(0.0,
+            MathUtil.angleModulus(far.getRotation().getRadians()
+                - farther.pose().getRotation().getRadians()),
+            0.1);
+        assertTrue(farther.xyStdDev() > near.xyStdDev());
+        assertTrue(farther.thetaStdDev() > near.thetaStdDev());
+    }
+
+    private static CameraThread newThread(IntPredicate tagFilter) {
+        return new CameraThread(3, new VisionCameraSim("test", ROBOT_TO_CAMERA, () -> ROBOT, LAYOUT,
+            0), ROBOT_TO_CAMERA, LAYOUT, tagFilter, new ConcurrentLinkedQueue<>());
+    }
+}